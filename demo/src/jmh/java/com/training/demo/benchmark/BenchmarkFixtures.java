@@ -0,0 +1,57 @@
+package com.training.demo.benchmark;
+
+import com.training.demo.entity.Role;
+import com.training.demo.entity.User;
+import com.training.demo.entity.UserHasRole;
+import com.training.demo.security.JwtProvider;
+import com.training.demo.utils.enums.AccessTokenMode;
+import com.training.demo.utils.enums.RoleType;
+import com.training.demo.utils.enums.UserStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Dựng các đối tượng dùng chung cho benchmark mà không cần Spring context
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static JwtProvider jwtProvider(int verifiedCacheSize) {
+        JwtProvider provider = new JwtProvider();
+        ReflectionTestUtils.setField(provider, "accessKeyBase64", randomKey());
+        ReflectionTestUtils.setField(provider, "refreshKeyBase64", randomKey());
+        ReflectionTestUtils.setField(provider, "expiryMinutes", 5L);
+        ReflectionTestUtils.setField(provider, "expiryDay", 14L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", verifiedCacheSize);
+        ReflectionTestUtils.setField(provider, "accessMode", AccessTokenMode.STATEFUL);
+        provider.init();
+        return provider;
+    }
+
+    public static User user(int roleCount) {
+        User user = User.builder()
+                .username("benchmark_user")
+                .email("benchmark@example.com")
+                .status(UserStatus.ACTIVE)
+                .verifyEmail(true)
+                .build();
+        user.setId(1L);
+
+        RoleType[] types = RoleType.values();
+        for (int i = 0; i < roleCount; i++) {
+            Role role = Role.builder().name(types[i % types.length]).build();
+            role.setId((long) i + 1);
+            user.getUserHasRoles().add(UserHasRole.builder().user(user).role(role).build());
+        }
+        return user;
+    }
+
+    private static String randomKey() {
+        byte[] key = new byte[64];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
@@ -0,0 +1,48 @@
+package com.training.demo.helpers.redis;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh GenericJackson2JsonRedisSerializer với CompactRedisSerializer (ns/value) trên payload thật của key family
+ * dùng codec: value của OTP_VERIFY_KEY: là email đã xác thực OTP (chế độ STORED).
+ * Kích thước byte của value được in ra lúc setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    @Param({"json", "compact"})
+    public String codec;
+
+    @Param({"an@example.com", "nguyen.van.an+signup@mail.training-demo.com.vn"})
+    public String verifyKeyEmail;
+
+    private RedisSerializer<Object> serializer;
+    private byte[] verifyKeyEmailBytes;
+
+    @Setup
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        serializer = "compact".equals(codec) ? new CompactRedisSerializer(json) : json;
+        verifyKeyEmailBytes = serializer.serialize(verifyKeyEmail);
+
+        System.out.printf("%n[%s] %s: %d bytes%n", codec, verifyKeyEmail, verifyKeyEmailBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeVerifyKeyValue() {
+        return serializer.serialize(verifyKeyEmail);
+    }
+
+    @Benchmark
+    public Object deserializeVerifyKeyValue() {
+        return serializer.deserialize(verifyKeyEmailBytes);
+    }
+}
@@ -0,0 +1,40 @@
+package com.training.demo.security;
+
+import com.training.demo.benchmark.BenchmarkFixtures;
+import com.training.demo.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí map role -> authorities của CustomUserDetailsService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomUserDetailsServiceBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int roleCount;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user(roleCount);
+    }
+
+    @Benchmark
+    public Set<GrantedAuthority> toAuthorities() {
+        return CustomUserDetailsService.toAuthorities(user);
+    }
+
+    @Benchmark
+    public CustomUserDetails buildPrincipal() {
+        return new CustomUserDetails(user, CustomUserDetailsService.toAuthorities(user));
+    }
+}
@@ -0,0 +1,36 @@
+package com.training.demo.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí kiểm tra public route (SecurityConfig.PUBLIC_URL) của JwtAuthFilter.shouldNotFilter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"/api/auth/login", "/swagger-ui/index.html", "/api/users/42"})
+    public String path;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        // shouldNotFilter không dùng các dependency
+        filter = new JwtAuthFilter(null, null, null, null, null, null, null);
+        request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+    }
+
+    @Benchmark
+    public boolean shouldNotFilter() {
+        return filter.shouldNotFilter(request);
+    }
+}
@@ -0,0 +1,71 @@
+package com.training.demo.security;
+
+import com.training.demo.benchmark.BenchmarkFixtures;
+import com.training.demo.entity.User;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sinh token, verify (cache hit / cache miss) và trích xuất claim của JwtProvider
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtProviderBenchmark {
+
+    private JwtProvider provider;
+    private JwtProvider uncachedProvider;
+    private User user;
+    private String accessToken;
+    private String refreshToken;
+    private String[] rotatingTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        provider = BenchmarkFixtures.jwtProvider(10_000);
+        // cache 1 phần tử + xoay vòng 2 token => lần nào cũng miss, đo chi phí parse đầy đủ
+        uncachedProvider = BenchmarkFixtures.jwtProvider(1);
+        user = BenchmarkFixtures.user(2);
+        accessToken = provider.generateAccessToken(user);
+        refreshToken = provider.generateRefreshToken(user);
+        rotatingTokens = new String[]{
+                uncachedProvider.generateAccessToken(user),
+                uncachedProvider.generateAccessToken(user)
+        };
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return provider.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return provider.generateRefreshToken(user);
+    }
+
+    @Benchmark
+    public boolean validateAccessTokenCached() {
+        return provider.validateToken(accessToken, true);
+    }
+
+    @Benchmark
+    public JwtClaims verifyAndExtractCached() {
+        return provider.verifyAndExtract(accessToken, true);
+    }
+
+    @Benchmark
+    public JwtClaims verifyAndExtractUncached() {
+        next ^= 1;
+        return uncachedProvider.verifyAndExtract(rotatingTokens[next], true);
+    }
+
+    @Benchmark
+    public String getUsernameFromRefreshToken() {
+        return provider.getUsernameFromToken(refreshToken, false);
+    }
+}
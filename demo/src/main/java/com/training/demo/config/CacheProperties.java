@@ -0,0 +1,28 @@
+package com.training.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private Spec defaults = new Spec();
+    private Map<String, Spec> specs = new HashMap<>();
+
+    public Spec specOf(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private long ttlSeconds = 300;
+        private int maxSize = 1000;
+    }
+}
@@ -3,7 +3,6 @@ package com.training.demo.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -45,12 +44,13 @@ public class MailConfig {
 
     /**
      * Executor phục vụ gửi email bất đồng bộ.
+     * Mỗi worker của MailServiceImpl chiếm cố định một thread, phần còn lại dành cho các task khác.
      */
     @Bean(name = "mailTaskExecutor")
-    public Executor mailTaskExecutor() {
+    public Executor mailTaskExecutor(MailPipelineProperties pipelineProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(CORE_POOL_SIZE);
-        executor.setMaxPoolSize(MAX_POOL_SIZE);
+        executor.setCorePoolSize(pipelineProperties.getWorkers() + CORE_POOL_SIZE);
+        executor.setMaxPoolSize(pipelineProperties.getWorkers() + MAX_POOL_SIZE);
         executor.setQueueCapacity(QUEUE_CAPACITY);
         executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
         executor.initialize();
@@ -58,10 +58,10 @@ public class MailConfig {
     }
 
     /**
-     * Cấu hình JavaMailSender.
+     * Cấu hình JavaMailSender. Trả về JavaMailSenderImpl để worker gửi mail mở và giữ Transport riêng.
      */
     @Bean
-    public JavaMailSender javaMailSender() {
+    public JavaMailSenderImpl javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
         mailSender.setHost(host);
         mailSender.setPort(port);
@@ -72,6 +72,10 @@ public class MailConfig {
         Properties props = new Properties();
         props.put("mail.smtp.auth", smtpAuth);
         props.put("mail.smtp.starttls.enable", starttlsEnable);
+        // kết nối được giữ lâu, không để worker treo vô hạn khi server không phản hồi
+        props.put("mail.smtp.connectiontimeout", SMTP_TIMEOUT_MS);
+        props.put("mail.smtp.timeout", SMTP_TIMEOUT_MS);
+        props.put("mail.smtp.writetimeout", SMTP_TIMEOUT_MS);
         mailSender.setJavaMailProperties(props);
 
         return mailSender;
@@ -0,0 +1,30 @@
+package com.training.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "mail-pipeline")
+public class MailPipelineProperties {
+    /** Số worker gửi mail, mỗi worker giữ một kết nối SMTP riêng trên mailTaskExecutor */
+    private int workers = 2;
+    /** Số mail tối đa chờ gửi, vượt quá thì từ chối nhận thêm */
+    private int queueCapacity = 10_000;
+    /** Số mail tối đa một worker lấy khỏi hàng đợi và gửi liên tiếp trên cùng kết nối */
+    private int batchSize = 20;
+    /** Gửi đủ số mail này thì mở kết nối mới (nhiều SMTP server giới hạn số mail mỗi kết nối) */
+    private int maxMessagesPerConnection = 100;
+    /** Đóng kết nối SMTP khi worker rảnh quá khoảng này */
+    private long idleCloseMs = 30_000;
+    /** Số lần gửi tối đa của một mail (tính cả lần đầu) */
+    private int maxAttempts = 4;
+    /** Backoff của lần retry đầu tiên, gấp đôi sau mỗi lần */
+    private long initialBackoffMs = 1_000;
+    private long maxBackoffMs = 60_000;
+    /** Thời gian tối đa chờ gửi nốt mail trong hàng đợi khi tắt ứng dụng, quá hạn thì mail còn lại bị log lỗi */
+    private long shutdownTimeoutMs = 20_000;
+}
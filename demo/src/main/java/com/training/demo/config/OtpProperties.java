@@ -1,5 +1,6 @@
 package com.training.demo.config;
 
+import com.training.demo.utils.enums.OtpMode;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -15,4 +16,14 @@ public class OtpProperties {
     private int maxSendCount;
     private int resendLimitMinutes;
     private int otpLength;
+    /** Bảng ký tự của OTP chế độ STORED (chế độ HMAC luôn là chữ số) */
+    private String otpAlphabet = "0123456789";
+    /** Số mã OTP sinh sẵn trong ring buffer (làm tròn lên lũy thừa của 2) */
+    private int codeBufferSize = 1024;
+    /** Số lần nhập sai tối đa trước khi OTP bị hủy (STORED) hoặc bị khóa tới lần cấp sau (HMAC) */
+    private int maxVerifyAttempts = 5;
+    /** STORED: lưu OTP + verify key trong Redis | HMAC: OTP dẫn xuất HMAC theo cửa sổ thời gian, verify key ký HMAC */
+    private OtpMode mode = OtpMode.STORED;
+    /** Khóa HMAC (base64) dùng cho chế độ HMAC */
+    private String secret;
 }
@@ -1,15 +1,75 @@
 package com.training.demo.config;
 
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.security.BCryptStrengthCalibrator;
+import com.training.demo.security.BulkheadPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.Map;
 
 @Configuration
 public class PasswordEncoderConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
+    @Value("${password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password-hashing.wait-timeout-ms:2000}")
+    private long waitTimeoutMs;
+
+    // 0 = tự đo khi khởi động theo target-latency-ms
+    @Value("${password-hashing.strength:0}")
+    private int strength;
+
+    @Value("${password-hashing.target-latency-ms:80}")
+    private long targetLatencyMs;
+
+    @Value("${password-hashing.min-strength:10}")
+    private int minStrength;
+
+    @Value("${password-hashing.max-strength:14}")
+    private int maxStrength;
+
+    /**
+     * Executor riêng cho BCrypt, mặc định số thread = số CPU.
+     */
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Password-Hash-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Hash mới được lưu dạng {bcrypt}$2a$<cost>$..., nên thuật toán và cost được ghi kèm từng hash.
+     * Hash cũ không có prefix vẫn verify được và sẽ được rehash khi login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BulkheadPasswordEncoder passwordEncoder(ThreadPoolTaskExecutor passwordHashingExecutor,
+                                                   MetricsRegistry metricsRegistry) {
+        int bcryptStrength = strength > 0
+                ? strength
+                : BCryptStrengthCalibrator.calibrate(targetLatencyMs, minStrength, maxStrength);
+
+        Map<String, PasswordEncoder> encoders = Map.of(BCRYPT_ID, new BCryptPasswordEncoder(bcryptStrength));
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        metricsRegistry.gauge("password.bcrypt.strength", () -> bcryptStrength);
+        return new BulkheadPasswordEncoder(delegating, passwordHashingExecutor, waitTimeoutMs, metricsRegistry);
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,109 @@
 package com.training.demo.config;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.training.demo.helpers.cache.TwoTierCacheManager;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.helpers.redis.CompactRedisSerializer;
+import com.training.demo.helpers.redis.LettuceLatencyRecorder;
+import com.training.demo.helpers.redis.RedisValueCodecs;
+import com.training.demo.helpers.redis.RoundRobinConnectionFactory;
+import com.training.demo.security.PrincipalCache;
+import com.training.demo.security.TokenDenylist;
+import com.training.demo.security.TokenVersionCache;
+import com.training.demo.security.UserExistenceFilter;
+import com.training.demo.service.RedisService;
+import com.training.demo.utils.constants.CacheConstants;
+import com.training.demo.utils.enums.RedisConnectionMode;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.SslOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.ssl.SslBundle;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSocketConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    /**
+     * ClientResources dùng chung cho mọi Lettuce client, ghi latency từng lệnh/từng connection vào MetricsRegistry
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MetricsRegistry metricsRegistry) {
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(new LettuceLatencyRecorder(metricsRegistry))
+                .build();
+    }
+
+    /**
+     * Connection factory cho command thường: SHARED = một connection multiplexed,
+     * POOLED = xoay vòng trên nhiều connection multiplexed để tránh head-of-line blocking.
+     * Lệnh blocking/transaction vẫn được Lettuce cấp connection riêng.
+     */
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory();
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory(RedisProperties redisProperties,
+                                                         RedisConnectionProperties connectionProperties,
+                                                         ClientResources clientResources,
+                                                         SslBundles sslBundles) {
+        if (connectionProperties.getMode() == RedisConnectionMode.POOLED) {
+            List<LettuceConnectionFactory> delegates = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, connectionProperties.getPoolSize()); i++) {
+                delegates.add(lettuceConnectionFactory(redisProperties, connectionProperties, clientResources, sslBundles));
+            }
+            return new RoundRobinConnectionFactory(delegates);
+        }
+        return lettuceConnectionFactory(redisProperties, connectionProperties, clientResources, sslBundles);
+    }
+
+    /**
+     * Connection factory riêng cho pub/sub, không dùng chung với command thường.
+     * Không là autowire candidate để inject theo kiểu (kể cả auto-config) luôn nhận factory chính.
+     */
+    @Bean(autowireCandidate = false)
+    public LettuceConnectionFactory pubSubConnectionFactory(RedisProperties redisProperties,
+                                                            RedisConnectionProperties connectionProperties,
+                                                            ClientResources clientResources,
+                                                            SslBundles sslBundles) {
+        return lettuceConnectionFactory(redisProperties, connectionProperties, clientResources, sslBundles);
     }
 
     @Bean
@@ -31,4 +119,244 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Serializer theo key family: codec nhị phân cho các prefix trong redis-codec.compact-key-prefixes, còn lại JSON
+     */
+    @Bean
+    public RedisValueCodecs redisValueCodecs(@Value("${redis-codec.compact-key-prefixes:}") String[] compactKeyPrefixes) {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        return new RedisValueCodecs(json, new CompactRedisSerializer(json), compactKeyPrefixes);
+    }
+
+    /**
+     * ReactiveRedisTemplate (JSON) trên connection factory chính, dùng cho ReactiveRedisService
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                                       RedisValueCodecs valueCodecs) {
+        return new ReactiveRedisTemplate<>(reactive(redisConnectionFactory), serializationContext(valueCodecs.json()));
+    }
+
+    /**
+     * CacheManager hai tầng cho @Cacheable: L1 in-process (W-TinyLFU) + L2 Redis, TTL/size theo từng cache
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheProperties cacheProperties,
+                                     RedisService redisService,
+                                     MetricsRegistry metricsRegistry) {
+        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper
+                        .registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith(CacheConstants.KEY_PREFIX)
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
+                .entryTtl(Duration.ofSeconds(cacheProperties.getDefaults().getTtlSeconds()));
+
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        cacheProperties.getSpecs().forEach((name, spec) ->
+                perCache.put(name, defaults.entryTtl(Duration.ofSeconds(spec.getTtlSeconds()))));
+
+        RedisCacheManager remote = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        remote.initializeCaches();
+
+        return new TwoTierCacheManager(remote, cacheProperties, redisService, metricsRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisProperties redisProperties,
+                                                                       RedisConnectionProperties connectionProperties,
+                                                                       ClientResources clientResources,
+                                                                       SslBundles sslBundles,
+                                                                       PrincipalCache principalCache,
+                                                                       TokenDenylist tokenDenylist,
+                                                                       TokenVersionCache tokenVersionCache,
+                                                                       UserExistenceFilter userExistenceFilter,
+                                                                       CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(pubSubConnectionFactory(redisProperties, connectionProperties, clientResources, sslBundles));
+
+        // Invalidate principal cache khi user thay đổi trên node khác
+        MessageListenerAdapter principalListener = new MessageListenerAdapter(principalCache, "evictLocal");
+        principalListener.setSerializer(new GenericJackson2JsonRedisSerializer());
+        principalListener.afterPropertiesSet();
+        container.addMessageListener(principalListener, new ChannelTopic(PrincipalCache.INVALIDATION_CHANNEL));
+
+        // Đồng bộ tăng dần jti bị thu hồi vào Bloom filter của từng node
+        MessageListenerAdapter denylistListener = new MessageListenerAdapter(tokenDenylist, "addLocal");
+        denylistListener.setSerializer(new GenericJackson2JsonRedisSerializer());
+        denylistListener.afterPropertiesSet();
+        container.addMessageListener(denylistListener, new ChannelTopic(TokenDenylist.DENYLIST_CHANNEL));
+
+        // Invalidate token version khi user/role bị thu hồi token trên node khác
+        MessageListenerAdapter tokenVersionListener = new MessageListenerAdapter(tokenVersionCache, "invalidateLocal");
+        tokenVersionListener.setSerializer(new GenericJackson2JsonRedisSerializer());
+        tokenVersionListener.afterPropertiesSet();
+        container.addMessageListener(tokenVersionListener, new ChannelTopic(TokenVersionCache.INVALIDATION_CHANNEL));
+
+        // Đồng bộ tăng dần user mới vào Bloom filter username/email của từng node
+        MessageListenerAdapter userFilterListener = new MessageListenerAdapter(userExistenceFilter, "addLocal");
+        userFilterListener.setSerializer(new GenericJackson2JsonRedisSerializer());
+        userFilterListener.afterPropertiesSet();
+        container.addMessageListener(userFilterListener, new ChannelTopic(UserExistenceFilter.ADDITION_CHANNEL));
+
+        // Xóa L1 của cache hai tầng khi node khác ghi/xóa entry
+        MessageListenerAdapter cacheListener = new MessageListenerAdapter(cacheManager, "onInvalidation");
+        cacheListener.setSerializer(new GenericJackson2JsonRedisSerializer());
+        cacheListener.afterPropertiesSet();
+        container.addMessageListener(cacheListener, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+
+    /**
+     * Script xoay vòng refreshToken (compare-and-swap + TTL + phát hiện reuse)
+     */
+    @Bean
+    public RedisScript<List<Object>> rotateRefreshTokenScript() {
+        return listScript("scripts/rotate_refresh_token.lua");
+    }
+
+    /**
+     * Script đăng ký phiên: dọn phiên hết hạn + loại phiên cũ nhất + HSET + EXPIRE trong một round trip
+     */
+    @Bean
+    public RedisScript<List<Object>> registerSessionScript() {
+        return listScript("scripts/register_session.lua");
+    }
+
+    /**
+     * Script cấp OTP (cooldown + quota + HSET mã OTP hoặc tăng số thứ tự lần cấp + INCR bộ đếm) trong một round trip
+     */
+    @Bean
+    public RedisScript<Long> issueOtpScript() {
+        return RedisScript.of(new ClassPathResource("scripts/issue_otp.lua"), Long.class);
+    }
+
+    /**
+     * Script xác thực OTP: so mã + HINCRBY số lần sai + khóa sau N lần sai trong một round trip
+     */
+    @Bean
+    public RedisScript<List<Object>> verifyOtpScript() {
+        return listScript("scripts/verify_otp.lua");
+    }
+
+    /**
+     * Chuyển SSL bundle (spring.data.redis.ssl.bundle) sang SslOptions của Lettuce, giống auto-config của Spring Boot
+     */
+    private static SslOptions sslOptions(SslBundle bundle) {
+        SslOptions.Builder builder = SslOptions.builder()
+                .keyManager(bundle.getManagers().getKeyManagerFactory())
+                .trustManager(bundle.getManagers().getTrustManagerFactory());
+        if (bundle.getOptions().getCiphers() != null) {
+            builder.cipherSuites(bundle.getOptions().getCiphers());
+        }
+        if (bundle.getOptions().getEnabledProtocols() != null) {
+            builder.protocols(bundle.getOptions().getEnabledProtocols());
+        }
+        return builder.build();
+    }
+
+    private LettuceConnectionFactory lettuceConnectionFactory(RedisProperties redisProperties,
+                                                              RedisConnectionProperties connectionProperties,
+                                                              ClientResources clientResources,
+                                                              SslBundles sslBundles) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfig = LettuceClientConfiguration.builder()
+                .clientResources(clientResources);
+        if (redisProperties.getTimeout() != null) {
+            clientConfig.commandTimeout(redisProperties.getTimeout());
+        }
+        RedisProperties.Cluster cluster = redisProperties.getCluster();
+        boolean clusterMode = cluster != null && cluster.getNodes() != null && !cluster.getNodes().isEmpty();
+        SocketOptions.Builder socketOptions = SocketOptions.builder();
+        if (redisProperties.getConnectTimeout() != null) {
+            socketOptions.connectTimeout(redisProperties.getConnectTimeout());
+        }
+        ClientOptions.Builder clientOptions = clusterMode
+                ? ClusterClientOptions.builder()
+                        .topologyRefreshOptions(topologyRefreshOptions(redisProperties.getLettuce().getCluster().getRefresh()))
+                : ClientOptions.builder();
+        clientOptions.socketOptions(socketOptions.build());
+        if (redisProperties.getClientName() != null) {
+            clientConfig.clientName(redisProperties.getClientName());
+        }
+        if (redisProperties.getSsl().isEnabled()) {
+            clientConfig.useSsl();
+            if (StringUtils.hasText(redisProperties.getSsl().getBundle())) {
+                clientOptions.sslOptions(sslOptions(sslBundles.getBundle(redisProperties.getSsl().getBundle())));
+            }
+        }
+        clientConfig.clientOptions(clientOptions.build());
+
+        LettuceConnectionFactory factory;
+        if (clusterMode) {
+            // Redis Cluster: key liên quan dùng chung hash tag (RedisKeySchema) nên multi-key vẫn chạy trên một slot
+            RedisClusterConfiguration server = new RedisClusterConfiguration(cluster.getNodes());
+            if (cluster.getMaxRedirects() != null) {
+                server.setMaxRedirects(cluster.getMaxRedirects());
+            }
+            server.setUsername(redisProperties.getUsername());
+            server.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            factory = new LettuceConnectionFactory(server, clientConfig.build());
+        } else if (StringUtils.hasText(connectionProperties.getSocket())) {
+            // Unix domain socket (cần native transport epoll/kqueue trên classpath)
+            RedisSocketConfiguration server = new RedisSocketConfiguration(connectionProperties.getSocket());
+            server.setDatabase(redisProperties.getDatabase());
+            server.setUsername(redisProperties.getUsername());
+            server.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            factory = new LettuceConnectionFactory(server, clientConfig.build());
+        } else {
+            RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+            server.setDatabase(redisProperties.getDatabase());
+            server.setUsername(redisProperties.getUsername());
+            server.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            factory = new LettuceConnectionFactory(server, clientConfig.build());
+        }
+        factory.setShareNativeConnection(true);
+        return factory;
+    }
+
+    /**
+     * Cập nhật topology khi slot di chuyển/failover: định kỳ và/hoặc ngay khi nhận MOVED/ASK
+     */
+    private static ClusterTopologyRefreshOptions topologyRefreshOptions(RedisProperties.Lettuce.Cluster.Refresh refresh) {
+        ClusterTopologyRefreshOptions.Builder options = ClusterTopologyRefreshOptions.builder()
+                .dynamicRefreshSources(refresh.isDynamicRefreshSources());
+        if (refresh.getPeriod() != null) {
+            options.enablePeriodicRefresh(refresh.getPeriod());
+        }
+        if (refresh.isAdaptive()) {
+            options.enableAllAdaptiveRefreshTriggers();
+        }
+        return options.build();
+    }
+
+    private static ReactiveRedisConnectionFactory reactive(RedisConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof ReactiveRedisConnectionFactory reactiveConnectionFactory) {
+            return reactiveConnectionFactory;
+        }
+        throw new IllegalStateException("Redis connection factory does not support reactive connections");
+    }
+
+    private static RedisSerializationContext<String, Object> serializationContext(RedisSerializer<Object> valueSerializer) {
+        return RedisSerializationContext.<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(valueSerializer)
+                .hashKey(new StringRedisSerializer())
+                .hashValue(new GenericJackson2JsonRedisSerializer())
+                .build();
+    }
+
+    /**
+     * Script trả về multi-bulk reply: Spring chỉ nhận List.class, kiểu phần tử được ép tại đây một lần
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Object>> listScript(String path) {
+        RedisScript<?> script = RedisScript.of(new ClassPathResource(path), List.class);
+        return (RedisScript<List<Object>>) script;
+    }
 }
@@ -0,0 +1,19 @@
+package com.training.demo.config;
+
+import com.training.demo.utils.enums.RedisConnectionMode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "redis-connection")
+public class RedisConnectionProperties {
+    /** SHARED: một connection multiplexed | POOLED: xoay vòng trên pool-size connection */
+    private RedisConnectionMode mode = RedisConnectionMode.SHARED;
+    private int poolSize = 4;
+    /** Đường dẫn Unix domain socket, để trống thì dùng TCP host/port */
+    private String socket;
+}
@@ -39,7 +39,9 @@ public class SecurityConfig {
             "/api/auth/login",
             "/api/auth/refresh-token",
             "/api/auth/logout",
+            "/api/auth/logout-all",
             "/api/auth/active",
+            "/api/auth/username-available",
             "/swagger-ui/**",
             "/v3/api-docs/**",
             "/swagger-resources/**",
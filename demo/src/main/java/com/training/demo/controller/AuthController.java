@@ -4,13 +4,17 @@ import com.training.demo.dto.request.Auth.*;
 import com.training.demo.dto.response.System.BaseResponse;
 import com.training.demo.service.AuthService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import java.util.Map;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -46,6 +50,17 @@ public class AuthController {
         return ResponseEntity.ok(BaseResponse.success());
     }
 
+    /**
+     * Kiểm tra username còn trống cho form đăng kí
+     * @param username username cần kiểm tra
+     * @return available
+     */
+    @GetMapping("/username-available")
+    public ResponseEntity<?> usernameAvailable(@RequestParam @NotBlank String username) {
+        log.info("[AUTH] API check username available: {}", username);
+        return ResponseEntity.ok(BaseResponse.success(Map.of("available", authService.isUsernameAvailable(username))));
+    }
+
     /**
      * Active account sau khi register
      * @param request email và otp
@@ -80,4 +95,16 @@ public class AuthController {
         authService.logout(request);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Logout account trên mọi thiết bị
+     * @param request access|refresh
+     * @return void
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@RequestBody @Valid LogoutRequest request) {
+        log.info("[AUTH] API logout all sessions");
+        authService.logoutAll(request);
+        return ResponseEntity.noContent().build();
+    }
 }
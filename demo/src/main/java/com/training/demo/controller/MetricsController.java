@@ -0,0 +1,28 @@
+package com.training.demo.controller;
+
+import com.training.demo.dto.response.System.BaseResponse;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+public class MetricsController {
+
+    private final MetricsRegistry metricsRegistry;
+
+    /**
+     * Xem snapshot metrics in-process của node hiện tại
+     * @return map tên metric -> giá trị
+     */
+    @GetMapping
+    public ResponseEntity<?> metrics() {
+        return ResponseEntity.ok(BaseResponse.success(metricsRegistry.snapshot()));
+    }
+}
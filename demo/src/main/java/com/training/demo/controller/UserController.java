@@ -5,6 +5,7 @@ import com.training.demo.dto.request.User.ChangePasswordRequest;
 import com.training.demo.dto.request.User.UpdateUserRequest;
 import com.training.demo.dto.response.System.BaseResponse;
 import com.training.demo.service.UserService;
+import com.training.demo.utils.enums.RoleType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -140,4 +141,28 @@ public class UserController {
         log.info("[User] Count total users");
         return ResponseEntity.ok(BaseResponse.success(userService.countUsers()));
     }
+
+    /**
+     * Admin thu hồi mọi token của một user
+     * @param id userId
+     */
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    @PostMapping("/{id}/revoke-tokens")
+    public ResponseEntity<?> revokeTokens(@PathVariable Long id) {
+        log.info("[User] Revoke all tokens of userId: {}", id);
+        userService.revokeTokens(id);
+        return ResponseEntity.ok(BaseResponse.success());
+    }
+
+    /**
+     * Admin thu hồi mọi token của các user có role chỉ định
+     * @param role role
+     * @return số user bị ảnh hưởng
+     */
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    @PostMapping("/revoke-tokens")
+    public ResponseEntity<?> revokeTokensByRole(@RequestParam RoleType role) {
+        log.info("[User] Revoke all tokens of role: {}", role);
+        return ResponseEntity.ok(BaseResponse.success(userService.revokeTokensByRole(role)));
+    }
 }
@@ -0,0 +1,16 @@
+package com.training.demo.dto.response.Role;
+
+import com.training.demo.utils.enums.RoleType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+@Getter
+@Builder
+@Jacksonized
+@AllArgsConstructor
+public class RoleResponse {
+    private Long id;
+    private RoleType name;
+}
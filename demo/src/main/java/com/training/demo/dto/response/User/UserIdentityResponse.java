@@ -0,0 +1,7 @@
+package com.training.demo.dto.response.User;
+
+public interface UserIdentityResponse {
+    Long getId();
+    String getUsername();
+    String getEmail();
+}
@@ -3,9 +3,11 @@ package com.training.demo.dto.response.User;
 import com.training.demo.utils.enums.UserStatus;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 
 @Getter
 @Builder
+@Jacksonized
 public class UserResponse {
     private Long id;
     private String username;
@@ -36,6 +36,13 @@ public class User extends BaseEntity {
     @Column(name = "verify_email")
     private boolean verifyEmail;
 
+    /**
+     * Tăng giá trị này để thu hồi mọi token đã cấp cho user
+     */
+    @Column(name = "token_version", nullable = false)
+    @Builder.Default
+    private long tokenVersion = 0;
+
     @OneToMany(
             cascade = CascadeType.ALL,
             fetch = FetchType.EAGER,
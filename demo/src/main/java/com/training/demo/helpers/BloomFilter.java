@@ -0,0 +1,169 @@
+package com.training.demo.helpers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter thread-safe cho String (lock-free, bitset trên AtomicLongArray).
+ * Không có false negative; tỉ lệ false positive xấp xỉ fpp khi số phần tử không vượt quá expectedInsertions.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter parameters");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (m + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitSize / 64));
+    }
+
+    private BloomFilter(long bitSize, int numHashes, AtomicLongArray bits) {
+        this.bitSize = bitSize;
+        this.numHashes = numHashes;
+        this.bits = bits;
+    }
+
+    /**
+     * Serialize filter (bitSize, numHashes, các word của bitset) để chia sẻ giữa các node
+     *
+     * @return mảng byte, đọc lại bằng {@link #fromBytes(byte[])}
+     */
+    public byte[] toBytes() {
+        int words = bits.length();
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + words * Long.BYTES);
+        buffer.putLong(bitSize).putInt(numHashes);
+        for (int i = 0; i < words; i++) {
+            buffer.putLong(bits.get(i));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Dựng lại filter từ kết quả của {@link #toBytes()}
+     *
+     * @param bytes dữ liệu đã serialize
+     * @return BloomFilter
+     */
+    public static BloomFilter fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < Long.BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("Invalid bloom filter snapshot");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long bitSize = buffer.getLong();
+        int numHashes = buffer.getInt();
+        if (bitSize <= 0 || bitSize % 64 != 0 || numHashes <= 0 || buffer.remaining() != bitSize / 8) {
+            throw new IllegalArgumentException("Invalid bloom filter snapshot");
+        }
+        AtomicLongArray bits = new AtomicLongArray((int) (bitSize / 64));
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, buffer.getLong());
+        }
+        return new BloomFilter(bitSize, numHashes, bits);
+    }
+
+    /**
+     * Thêm một phần tử vào filter
+     *
+     * @param value giá trị cần thêm
+     */
+    public void put(String value) {
+        long hash64 = murmur64(value);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            setBit(index(h1 + i * h2));
+        }
+    }
+
+    /**
+     * Kiểm tra phần tử có thể đã tồn tại hay chắc chắn chưa tồn tại
+     *
+     * @param value giá trị cần kiểm tra
+     * @return false nếu chắc chắn chưa từng được thêm
+     */
+    public boolean mightContain(String value) {
+        long hash64 = murmur64(value);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            if (!getBit(index(h1 + i * h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitSize;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean getBit(long index) {
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    // MurmurHash64A trên bytes UTF-8 của chuỗi
+    @SuppressWarnings("fallthrough")
+    private static long murmur64(String value) {
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        final long m = 0xc6a4a7935bd1e995L;
+        final int r = 47;
+        long h = 0x9747b28cL ^ (data.length * m);
+
+        int blocks = data.length / 8;
+        for (int i = 0; i < blocks; i++) {
+            int offset = i * 8;
+            long k = (data[offset] & 0xffL)
+                    | (data[offset + 1] & 0xffL) << 8
+                    | (data[offset + 2] & 0xffL) << 16
+                    | (data[offset + 3] & 0xffL) << 24
+                    | (data[offset + 4] & 0xffL) << 32
+                    | (data[offset + 5] & 0xffL) << 40
+                    | (data[offset + 6] & 0xffL) << 48
+                    | (data[offset + 7] & 0xffL) << 56;
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+
+        int tail = blocks * 8;
+        // phần đuôi < 8 byte: cố ý rơi xuống các case dưới để trộn từng byte còn lại
+        switch (data.length - tail) {
+            case 7: h ^= (data[tail + 6] & 0xffL) << 48;
+            case 6: h ^= (data[tail + 5] & 0xffL) << 40;
+            case 5: h ^= (data[tail + 4] & 0xffL) << 32;
+            case 4: h ^= (data[tail + 3] & 0xffL) << 24;
+            case 3: h ^= (data[tail + 2] & 0xffL) << 16;
+            case 2: h ^= (data[tail + 1] & 0xffL) << 8;
+            case 1:
+                h ^= data[tail] & 0xffL;
+                h *= m;
+            default:
+        }
+
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+}
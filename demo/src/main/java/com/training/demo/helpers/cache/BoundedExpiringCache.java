@@ -0,0 +1,100 @@
+package com.training.demo.helpers.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache in-process có giới hạn số phần tử, mỗi entry mang thời điểm hết hạn riêng.
+ * Khi vượt quá maxSize sẽ loại bỏ theo thứ tự chèn (FIFO), entry hết hạn bị bỏ qua khi đọc.
+ *
+ * @param <K> kiểu key
+ * @param <V> kiểu value
+ */
+public class BoundedExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Entry<V>> entries;
+    private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public BoundedExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+    }
+
+    /**
+     * Lấy value còn hiệu lực theo key
+     *
+     * @param key key cần lấy
+     * @return value hoặc null nếu không có / đã hết hạn
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Lưu value với thời điểm hết hạn tuyệt đối
+     *
+     * @param key             key
+     * @param value           value
+     * @param expiresAtMillis epoch millis mà entry hết hiệu lực
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.put(key, new Entry<>(value, expiresAtMillis)) == null) {
+            insertionOrder.add(key);
+            queued.incrementAndGet();
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Xóa một entry
+     *
+     * @param key key cần xóa
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Xóa toàn bộ cache
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded() {
+        // queue có thể chứa key đã bị xóa/hết hạn, nên giới hạn cả hai phía
+        while (entries.size() > maxSize || queued.get() > maxSize * 2) {
+            K eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            entries.remove(eldest);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
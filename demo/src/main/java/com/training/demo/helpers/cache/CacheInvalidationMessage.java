@@ -0,0 +1,19 @@
+package com.training.demo.helpers.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message pub/sub yêu cầu các node khác xóa entry L1 của {@link TwoTierCache}
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheInvalidationMessage {
+    /** Node phát message, node này bỏ qua message của chính mình */
+    private String origin;
+    private String cacheName;
+    /** Key đã chuẩn hóa về String, null nghĩa là xóa toàn bộ cache */
+    private String key;
+}
@@ -0,0 +1,70 @@
+package com.training.demo.helpers.cache;
+
+/**
+ * Count-min sketch ước lượng tần suất truy cập key (counter tối đa 15) dùng cho TinyLFU admission.
+ * Sau mỗi sampleSize lần tăng, mọi counter được chia đôi để tần suất cũ phai dần.
+ * Mỗi slot của cache có COUNTERS_PER_ENTRY counter: tới lúc chia đôi, trung bình mỗi counter mới nhận ~5 lần tăng
+ * nên còn xa ngưỡng bão hòa và vẫn phân biệt được key nóng với key chỉ truy cập một lần.
+ * Không thread-safe, caller phải tự đồng bộ.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int COUNTERS_PER_ENTRY = 8;
+    private static final int SAMPLE_FACTOR = 10;
+    private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maxSize) {
+        int entries = Integer.highestOneBit(Math.max(16, maxSize) - 1) << 1;
+        int width = entries * COUNTERS_PER_ENTRY;
+        this.table = new byte[width];
+        this.mask = width - 1;
+        this.sampleSize = SAMPLE_FACTOR * Math.max(16, maxSize);
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        for (int i = 0; i < DEPTH; i++) {
+            int index = indexOf(hash, i);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+            }
+        }
+        // đếm cả lần tăng rơi vào counter đã bão hòa, nếu không sketch bão hòa sẽ không bao giờ được chia đôi
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) (table[i] >>> 1);
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
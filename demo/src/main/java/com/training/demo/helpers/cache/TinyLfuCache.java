@@ -0,0 +1,148 @@
+package com.training.demo.helpers.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache in-process có giới hạn theo kiểu W-TinyLFU: entry mới vào một window LRU nhỏ (~1% dung lượng),
+ * khi window đầy thì ứng viên bị đẩy ra chỉ được nhận vào vùng main nếu tần suất (theo {@link FrequencySketch})
+ * cao hơn nạn nhân LRU của main. Nhờ đó key truy cập một lần không đẩy được key nóng ra khỏi cache.
+ * Mỗi entry mang thời điểm hết hạn riêng. Các thao tác được đồng bộ bằng monitor của cache.
+ *
+ * @param <K> kiểu key
+ * @param <V> kiểu value
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLfuCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.windowCapacity = Math.max(1, maxSize / 100);
+        this.mainCapacity = Math.max(1, maxSize - windowCapacity);
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * Lấy value còn hiệu lực theo key
+     *
+     * @param key key cần lấy
+     * @return value hoặc null nếu không có / đã hết hạn
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        Entry<V> entry = window.get(key);
+        if (entry == null) {
+            entry = main.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            window.remove(key);
+            main.remove(key);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Lưu value với thời điểm hết hạn tuyệt đối
+     *
+     * @param key             key
+     * @param value           value
+     * @param expiresAtMillis epoch millis mà entry hết hiệu lực
+     */
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        Entry<V> entry = new Entry<>(value, expiresAtMillis);
+        if (main.containsKey(key)) {
+            main.put(key, entry);
+            return;
+        }
+        window.put(key, entry);
+        if (window.size() > windowCapacity) {
+            admitFromWindow();
+        }
+    }
+
+    /**
+     * Xóa một entry
+     *
+     * @param key key cần xóa
+     */
+    public synchronized void invalidate(K key) {
+        window.remove(key);
+        main.remove(key);
+    }
+
+    /**
+     * Xóa toàn bộ cache
+     */
+    public synchronized void invalidateAll() {
+        window.clear();
+        main.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private void admitFromWindow() {
+        Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+        if (main.size() < mainCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+
+        K victim = main.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            main.remove(victim);
+            main.put(candidate.getKey(), candidate.getValue());
+        }
+        evictions.increment();
+    }
+
+    private Map.Entry<K, Entry<V>> removeEldest(LinkedHashMap<K, Entry<V>> segment) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, Entry<V>> eldest = iterator.next();
+        Map.Entry<K, Entry<V>> detached = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return detached;
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.training.demo.helpers.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cache hai tầng: L1 in-process ({@link TinyLfuCache}) phía trước L2 Redis.
+ * Đọc L1 trước, miss thì đọc L2 và nạp lại L1; ghi/xóa đi qua cả hai tầng và phát invalidation
+ * để các node khác bỏ entry L1 tương ứng.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final TinyLfuCache<String, Object> local;
+    private final Cache remote;
+    private final long ttlMillis;
+    private final Consumer<String> invalidationPublisher;
+    private final ConcurrentHashMap<String, Object> loadLocks = new ConcurrentHashMap<>();
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+
+    /**
+     * @param name                  tên cache
+     * @param maxSize               số entry tối đa của L1
+     * @param ttlMillis             TTL của entry L1
+     * @param remote                cache L2 (Redis)
+     * @param invalidationPublisher phát invalidation cho key (null = toàn bộ cache) tới các node khác
+     */
+    public TwoTierCache(String name, int maxSize, long ttlMillis, Cache remote, Consumer<String> invalidationPublisher) {
+        super(true);
+        this.name = name;
+        this.local = new TinyLfuCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.get(localKey);
+        if (value != null) {
+            return value;
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        Object storeValue = toStoreValue(wrapper.get());
+        local.put(localKey, storeValue, System.currentTimeMillis() + ttlMillis);
+        return storeValue;
+    }
+
+    /**
+     * Đọc hoặc nạp value (@Cacheable(sync = true)): các lần nạp cùng key trên node này được tuần tự hóa,
+     * thread đến sau chờ rồi đọc lại value vừa được nạp thay vì gọi valueLoader thêm lần nữa
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        String localKey = localKey(key);
+        Object lock = loadLocks.computeIfAbsent(localKey, k -> new Object());
+        try {
+            synchronized (lock) {
+                cached = get(key);
+                if (cached != null) {
+                    return (T) cached.get();
+                }
+                T value;
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                put(key, value);
+                return value;
+            }
+        } finally {
+            // value đã nằm trong cache trước khi lock được gỡ, thread tạo lock mới sau đó sẽ đọc thấy value
+            loadLocks.remove(localKey, lock);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), toStoreValue(value), System.currentTimeMillis() + ttlMillis);
+        invalidationPublisher.accept(localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    /**
+     * Chỉ xóa L1 ở node hiện tại (được gọi khi nhận invalidation từ node khác)
+     *
+     * @param key key đã chuẩn hóa, null để xóa toàn bộ
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    public TinyLfuCache<String, Object> getLocal() {
+        return local;
+    }
+
+    public double remoteHitRatio() {
+        long hitCount = remoteHits.sum();
+        long total = hitCount + remoteMisses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Key L1 được chuẩn hóa về String để khớp giữa các node (key qua pub/sub JSON có thể đổi kiểu số)
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,103 @@
+package com.training.demo.helpers.cache;
+
+import com.training.demo.config.CacheProperties;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheManager hai tầng cho @Cacheable: mỗi cache là một {@link TwoTierCache} với size/TTL riêng theo
+ * {@link CacheProperties}. Ghi/xóa được hoãn tới sau commit nếu đang trong transaction.
+ * Invalidation L1 được broadcast qua Redis pub/sub.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager remoteCacheManager;
+    private final CacheProperties properties;
+    private final RedisService redisService;
+    private final MetricsRegistry metricsRegistry;
+    private final Map<String, TwoTierCache> tiers = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               CacheProperties properties,
+                               RedisService redisService,
+                               MetricsRegistry metricsRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.properties = properties;
+        this.redisService = redisService;
+        this.metricsRegistry = metricsRegistry;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getSpecs().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    /**
+     * Xóa L1 theo invalidation từ node khác (được gọi từ listener pub/sub)
+     *
+     * @param message invalidation
+     */
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (nodeId.equals(message.getOrigin())) {
+            return;
+        }
+        TwoTierCache cache = tiers.get(message.getCacheName());
+        if (cache != null) {
+            cache.evictLocal(message.getKey());
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        return tiers.computeIfAbsent(name, cacheName -> {
+            CacheProperties.Spec spec = properties.specOf(cacheName);
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote == null) {
+                throw new IllegalStateException("Remote cache not available: " + cacheName);
+            }
+
+            TwoTierCache cache = new TwoTierCache(cacheName, spec.getMaxSize(), spec.getTtlSeconds() * 1000,
+                    remote, key -> publish(cacheName, key));
+            registerMetrics(cache);
+            return cache;
+        });
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisService.publish(INVALIDATION_CHANNEL, new CacheInvalidationMessage(nodeId, cacheName, key));
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation for cache: {}", cacheName, e);
+        }
+    }
+
+    private void registerMetrics(TwoTierCache cache) {
+        String prefix = "cache." + cache.getName();
+        TinyLfuCache<String, Object> local = cache.getLocal();
+        metricsRegistry.gauge(prefix + ".l1.hit-ratio", local::hitRatio);
+        metricsRegistry.gauge(prefix + ".l1.hits", local::hitCount);
+        metricsRegistry.gauge(prefix + ".l1.misses", local::missCount);
+        metricsRegistry.gauge(prefix + ".l1.evictions", local::evictionCount);
+        metricsRegistry.gauge(prefix + ".l1.size", local::size);
+        metricsRegistry.gauge(prefix + ".l2.hit-ratio", cache::remoteHitRatio);
+    }
+}
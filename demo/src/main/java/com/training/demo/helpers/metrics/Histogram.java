@@ -0,0 +1,72 @@
+package com.training.demo.helpers.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram lock-free với các bucket cố định (cận trên, tính theo đơn vị của giá trị ghi vào)
+ */
+public class Histogram {
+
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram(long... bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Snapshot dạng map: count, sum, max và số lần ghi theo từng bucket
+     *
+     * @param unit hậu tố đơn vị hiển thị cho tên bucket
+     * @param divisor hệ số chia khi hiển thị giá trị (vd: 1_000_000 để đổi nanos -> ms)
+     * @return snapshot
+     */
+    public Map<String, Object> snapshot(String unit, long divisor) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long total = count();
+        result.put("count", total);
+        result.put("mean" + unit, total == 0 ? 0 : (double) sum() / total / divisor);
+        result.put("max" + unit, (double) max() / divisor);
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            histogram.put("le" + bounds[i] / divisor + unit, buckets[i].sum());
+        }
+        histogram.put("inf", buckets[bounds.length].sum());
+        result.put("buckets", histogram);
+        return result;
+    }
+}
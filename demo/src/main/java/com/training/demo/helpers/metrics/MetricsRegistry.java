@@ -0,0 +1,57 @@
+package com.training.demo.helpers.metrics;
+
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registry metrics in-process (timer, histogram, counter, gauge), xem qua API /api/metrics
+ */
+@Component
+public class MetricsRegistry {
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /**
+     * Lấy (hoặc tạo) histogram, bounds chỉ được dùng khi tạo mới
+     *
+     * @param name   tên metric
+     * @param bounds cận trên các bucket
+     * @return Histogram
+     */
+    public Histogram histogram(String name, long... bounds) {
+        return histograms.computeIfAbsent(name, k -> new Histogram(bounds));
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Snapshot toàn bộ metrics, sắp xếp theo tên
+     *
+     * @return map tên metric -> giá trị
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        timers.forEach((name, timer) -> result.put(name, timer.snapshot()));
+        histograms.forEach((name, histogram) -> result.put(name, histogram.snapshot("", 1)));
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> result.put(name, gauge.get()));
+        return result;
+    }
+}
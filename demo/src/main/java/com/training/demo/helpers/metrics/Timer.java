@@ -0,0 +1,44 @@
+package com.training.demo.helpers.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo latency (nanos) với histogram theo các mốc milli-giây
+ */
+public class Timer {
+
+    private static final long NANOS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long[] BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private final Histogram histogram;
+
+    public Timer() {
+        long[] bounds = new long[BOUNDS_MS.length];
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            bounds[i] = BOUNDS_MS[i] * NANOS_PER_MS;
+        }
+        this.histogram = new Histogram(bounds);
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /**
+     * Ghi latency tính từ thời điểm startNanos (System.nanoTime())
+     *
+     * @param startNanos thời điểm bắt đầu
+     */
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return histogram.count();
+    }
+
+    public Map<String, Object> snapshot() {
+        return histogram.snapshot("Ms", NANOS_PER_MS);
+    }
+}
@@ -0,0 +1,126 @@
+package com.training.demo.helpers.redis;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Serializer nhị phân gọn cho value Redis: 1 byte tag + dữ liệu, không ghi tên class như JSON.
+ * Hỗ trợ String, Integer, Long; kiểu khác được ghi bằng serializer fallback (JSON).
+ * Tag nằm trong dải byte điều khiển (0x01-0x03) mà JSON hợp lệ không bao giờ bắt đầu bằng, nên value cũ dạng JSON
+ * vẫn đọc được sau khi chuyển một key family sang codec này.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte TAG_STRING = 0x01;
+    private static final byte TAG_INT = 0x02;
+    private static final byte TAG_LONG = 0x03;
+
+    private final RedisSerializer<Object> fallback;
+
+    public CompactRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String str) {
+            byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[utf8.length + 1];
+            bytes[0] = TAG_STRING;
+            System.arraycopy(utf8, 0, bytes, 1, utf8.length);
+            return bytes;
+        }
+        if (value instanceof Integer number) {
+            return new Writer(6).tag(TAG_INT).varLong(number).toBytes();
+        }
+        if (value instanceof Long number) {
+            return new Writer(11).tag(TAG_LONG).varLong(number).toBytes();
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        Reader reader = new Reader(bytes);
+        return switch (bytes[0]) {
+            case TAG_STRING -> new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+            case TAG_INT -> (int) reader.varLong();
+            case TAG_LONG -> reader.varLong();
+            default -> fallback.deserialize(bytes);
+        };
+    }
+
+    /**
+     * Ghi tuần tự vào mảng byte tự giãn (zigzag varint cho số nguyên)
+     */
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        Writer tag(byte tag) {
+            ensure(1);
+            buffer[position++] = tag;
+            return this;
+        }
+
+        Writer varLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+            return this;
+        }
+
+        byte[] toBytes() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    /**
+     * Đọc tuần tự từ mảng byte, bỏ qua byte tag đầu tiên
+     */
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position = 1;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long varLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte current;
+            do {
+                if (position >= buffer.length || shift > 63) {
+                    throw new SerializationException("Malformed compact value");
+                }
+                current = buffer[position++];
+                zigzag |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
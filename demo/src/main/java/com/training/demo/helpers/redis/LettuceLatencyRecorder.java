@@ -0,0 +1,28 @@
+package com.training.demo.helpers.redis;
+
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.net.SocketAddress;
+
+/**
+ * Ghi latency của từng lệnh Redis (do Lettuce đo) vào {@link MetricsRegistry}: theo loại lệnh và theo node Redis
+ * (địa chỉ remote), để thấy được node nào đang bị nghẽn. Không dùng địa chỉ local vì cổng tạm đổi sau mỗi lần
+ * reconnect, mỗi connection mới sẽ tạo metric mới không bao giờ bị xóa.
+ */
+public class LettuceLatencyRecorder implements CommandLatencyRecorder {
+
+    private final MetricsRegistry metricsRegistry;
+
+    public LettuceLatencyRecorder(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        metricsRegistry.timer("redis.command." + commandType.toString()).record(completionLatency);
+        metricsRegistry.timer("redis.node." + remote + ".latency").record(completionLatency);
+        metricsRegistry.timer("redis.node." + remote + ".first-response").record(firstResponseLatency);
+    }
+}
@@ -0,0 +1,61 @@
+package com.training.demo.helpers.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cầu nối giữa code blocking (servlet thread) và {@link com.training.demo.service.ReactiveRedisService}.
+ * {@link #start(Mono)} gửi lệnh Redis ngay và trả về handle, caller làm việc khác (query DB, verify token...)
+ * rồi mới {@link #await(CompletableFuture)}, nên thời gian chờ Redis chồng lên thời gian xử lý còn lại.
+ */
+@Component
+public class ReactiveRedisAdapter {
+
+    private final Duration timeout;
+
+    public ReactiveRedisAdapter(@Value("${redis-reactive.await-timeout:2s}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribe ngay (lệnh được gửi đi), kết quả empty được map thành Optional.empty()
+     */
+    public <T> CompletableFuture<Optional<T>> start(Mono<T> mono) {
+        return mono.map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .timeout(timeout)
+                .toFuture();
+    }
+
+    /**
+     * Chờ kết quả của lệnh đã {@link #start(Mono)}. Exception gốc (DataAccessException...) được ném lại nguyên dạng,
+     * hết thời gian chờ được ném dưới dạng QueryTimeoutException giống timeout của RedisService (blocking)
+     */
+    public <T> T await(CompletableFuture<T> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException cause) {
+                throw new QueryTimeoutException("Redis command timed out after " + timeout.toMillis() + " ms", cause);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gửi và chờ ngay, dùng khi không có việc nào khác để chạy song song
+     */
+    public <T> Optional<T> block(Mono<T> mono) {
+        return await(start(mono));
+    }
+}
@@ -0,0 +1,128 @@
+package com.training.demo.helpers.redis;
+
+import com.training.demo.helpers.metrics.Histogram;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.helpers.metrics.Timer;
+import com.training.demo.utils.RedisKeySchema;
+import com.training.demo.utils.enums.RedisKeyFamily;
+import io.lettuce.core.RedisCommandTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics của RedisService theo (thao tác, key family): latency, kích thước value, số lỗi và số timeout,
+ * xem qua /api/metrics với tên dạng redis.op.&lt;op&gt;.&lt;family&gt;.*.
+ * Thay cho log INFO mỗi lệnh: chỉ một phần nhỏ lệnh (redis-metrics.trace-sample-rate) được log ở mức DEBUG.
+ */
+@Component
+@Slf4j
+public class RedisCommandMetrics {
+
+    private static final long[] VALUE_SIZE_BOUNDS = {32, 64, 128, 256, 512, 1024, 4096, 16384, 65536};
+
+    private final MetricsRegistry metricsRegistry;
+    private final double traceSampleRate;
+    private final Map<String, Probe[]> probes = new ConcurrentHashMap<>();
+
+    public RedisCommandMetrics(MetricsRegistry metricsRegistry,
+                               @Value("${redis-metrics.trace-sample-rate:0.01}") double traceSampleRate) {
+        this.metricsRegistry = metricsRegistry;
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    /**
+     * Ghi nhận một lệnh thành công
+     *
+     * @param operation  tên thao tác (get, set, ...)
+     * @param key        key (hoặc key đầu tiên với thao tác nhiều key)
+     * @param startNanos thời điểm bắt đầu (System.nanoTime())
+     */
+    public void success(String operation, String key, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        probe(operation, key).latency.record(elapsed);
+        if (log.isDebugEnabled() && sampled()) {
+            log.debug("[Redis] {} {} took {}us", operation, key, TimeUnit.NANOSECONDS.toMicros(elapsed));
+        }
+    }
+
+    /**
+     * Ghi nhận một lệnh lỗi, timeout được đếm riêng
+     */
+    public void failure(String operation, String key, long startNanos, Throwable error) {
+        Probe probe = probe(operation, key);
+        probe.latency.recordSince(startNanos);
+        probe.errors.increment();
+        if (isTimeout(error)) {
+            probe.timeouts.increment();
+        }
+    }
+
+    /**
+     * Ghi nhận kích thước value (byte sau khi serialize) đọc/ghi
+     */
+    public void valueSize(String operation, String key, int bytes) {
+        probe(operation, key).valueSize().record(bytes);
+    }
+
+    private Probe probe(String operation, String key) {
+        RedisKeyFamily family = key == null ? RedisKeyFamily.OTHER : RedisKeySchema.family(key);
+        Probe[] byFamily = probes.computeIfAbsent(operation, op -> new Probe[RedisKeyFamily.values().length]);
+        Probe probe = byFamily[family.ordinal()];
+        if (probe == null) {
+            // race tạo trùng vô hại: MetricsRegistry trả về cùng một metric theo tên
+            probe = new Probe(metricsRegistry, "redis.op." + operation + "." + family.getMetricName());
+            byFamily[family.ordinal()] = probe;
+        }
+        return probe;
+    }
+
+    private boolean sampled() {
+        return traceSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < traceSampleRate;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException
+                    || cause instanceof RedisCommandTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Probe {
+        private final MetricsRegistry metricsRegistry;
+        private final String prefix;
+        private final Timer latency;
+        private final LongAdder errors;
+        private final LongAdder timeouts;
+        // chỉ tạo cho thao tác có đọc/ghi value, tránh histogram rỗng cho exists/delete...
+        private volatile Histogram valueSize;
+
+        private Probe(MetricsRegistry metricsRegistry, String prefix) {
+            this.metricsRegistry = metricsRegistry;
+            this.prefix = prefix;
+            this.latency = metricsRegistry.timer(prefix + ".latency");
+            this.errors = metricsRegistry.counter(prefix + ".errors");
+            this.timeouts = metricsRegistry.counter(prefix + ".timeouts");
+        }
+
+        private Histogram valueSize() {
+            Histogram histogram = valueSize;
+            if (histogram == null) {
+                histogram = metricsRegistry.histogram(prefix + ".value-bytes", VALUE_SIZE_BOUNDS);
+                valueSize = histogram;
+            }
+            return histogram;
+        }
+    }
+}
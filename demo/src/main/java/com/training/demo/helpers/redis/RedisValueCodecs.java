@@ -0,0 +1,42 @@
+package com.training.demo.helpers.redis;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Chọn value serializer theo key family: key có prefix khai báo trong redis-codec.compact-key-prefixes dùng
+ * {@link CompactRedisSerializer}, các key còn lại (hash/sorted set/script/pub-sub) giữ JSON.
+ * Dùng chung cho RedisService (blocking) và ReactiveRedisService.
+ */
+public class RedisValueCodecs {
+
+    private final RedisSerializer<Object> json;
+    private final RedisSerializer<Object> compact;
+    private final String[] compactKeyPrefixes;
+
+    public RedisValueCodecs(RedisSerializer<Object> json, RedisSerializer<Object> compact, String[] compactKeyPrefixes) {
+        this.json = json;
+        this.compact = compact;
+        this.compactKeyPrefixes = compactKeyPrefixes;
+    }
+
+    public boolean isCompact(String key) {
+        for (String prefix : compactKeyPrefixes) {
+            if (!prefix.isEmpty() && key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public RedisSerializer<Object> forKey(String key) {
+        return isCompact(key) ? compact : json;
+    }
+
+    public RedisSerializer<Object> json() {
+        return json;
+    }
+
+    public RedisSerializer<Object> compact() {
+        return compact;
+    }
+}
@@ -0,0 +1,92 @@
+package com.training.demo.helpers.redis;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReactiveRedisClusterConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Phân phối thao tác Redis lên nhiều connection multiplexed (mỗi delegate giữ một native connection dùng chung),
+ * tránh head-of-line blocking khi mọi request cùng xếp hàng trên một connection.
+ * Factory này quản lý vòng đời (khởi tạo/đóng) của các delegate.
+ */
+public class RoundRobinConnectionFactory implements RedisConnectionFactory, ReactiveRedisConnectionFactory,
+        InitializingBean, DisposableBean {
+
+    private final List<LettuceConnectionFactory> delegates;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RoundRobinConnectionFactory(List<LettuceConnectionFactory> delegates) {
+        if (delegates.isEmpty()) {
+            throw new IllegalArgumentException("At least one connection factory is required");
+        }
+        this.delegates = List.copyOf(delegates);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (LettuceConnectionFactory delegate : delegates) {
+            delegate.afterPropertiesSet();
+            delegate.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (LettuceConnectionFactory delegate : delegates) {
+            delegate.destroy();
+        }
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        return nextDelegate().getConnection();
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return nextDelegate().getClusterConnection();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegates.get(0).getSentinelConnection();
+    }
+
+    @Override
+    public ReactiveRedisConnection getReactiveConnection() {
+        return nextDelegate().getReactiveConnection();
+    }
+
+    @Override
+    public ReactiveRedisClusterConnection getReactiveClusterConnection() {
+        return nextDelegate().getReactiveClusterConnection();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegates.get(0).getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegates.get(0).translateExceptionIfPossible(ex);
+    }
+
+    public int size() {
+        return delegates.size();
+    }
+
+    private LettuceConnectionFactory nextDelegate() {
+        return delegates.get(Math.floorMod(next.getAndIncrement(), delegates.size()));
+    }
+}
@@ -1,8 +1,13 @@
 package com.training.demo.repository;
 
+import com.training.demo.dto.response.Role.RoleResponse;
 import com.training.demo.entity.Role;
+import com.training.demo.utils.constants.CacheConstants;
 import com.training.demo.utils.enums.RoleType;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -16,4 +21,14 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
      */
     Optional<Role> findByName(RoleType name);
 
+    /**
+     * Lấy id + tên role theo tên. Cache DTO bất biến thay vì entity, để các request không dùng chung một Role
+     * detached (gắn vào UserHasRole mới qua getReferenceById)
+     * @param name name
+     * @return id + tên role
+     */
+    @Cacheable(cacheNames = CacheConstants.ROLES, key = "#p0", unless = "#result == null")
+    @Query("SELECT new com.training.demo.dto.response.Role.RoleResponse(r.id, r.name) FROM Role r WHERE r.name = :name")
+    Optional<RoleResponse> findResponseByName(@Param("name") RoleType name);
+
 }
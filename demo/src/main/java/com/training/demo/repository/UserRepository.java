@@ -1,11 +1,17 @@
 package com.training.demo.repository;
 
 import com.training.demo.dto.response.User.ExportUserResponse;
+import com.training.demo.dto.response.User.UserIdentityResponse;
 import com.training.demo.entity.User;
+import com.training.demo.utils.enums.RoleType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,10 +64,64 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     """)
     List<ExportUserResponse> findAllWithRoles();
 
+    /**
+     * Lấy username/email theo từng trang (keyset theo id), dùng để dựng lại Bloom filter user
+     * @param afterId id cuối cùng của trang trước (0 cho trang đầu)
+     * @param pageable kích thước trang
+     * @return danh sách id, username, email theo thứ tự id tăng dần
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserIdentityResponse> findIdentitiesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * Đếm tổng số người dùng trong hệ thống
      * @return Tổng số người dùng
      */
     @Query("SELECT COUNT(u) FROM User u")
     long count();
+
+    /**
+     * Cập nhật hash mật khẩu nếu hash hiện tại chưa bị thay đổi (dùng khi rehash sau login)
+     * @param id userId
+     * @param oldHash hash đang lưu lúc đọc
+     * @param newHash hash mới
+     * @return số bản ghi được cập nhật (0 nếu mật khẩu đã bị đổi)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
+
+    /**
+     * Lấy token version của user
+     * @param username username
+     * @return token version, empty nếu user không tồn tại
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.username = :username")
+    Optional<Long> findTokenVersionByUsername(@Param("username") String username);
+
+    /**
+     * Tăng token version (thu hồi mọi token) của một user
+     * @param id userId
+     * @return số bản ghi được cập nhật
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    /**
+     * Tăng token version của mọi user có role chỉ định trong một câu UPDATE
+     * @param role role
+     * @return số bản ghi được cập nhật
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+    UPDATE User u SET u.tokenVersion = u.tokenVersion + 1
+    WHERE u.id IN (SELECT uhr.user.id FROM UserHasRole uhr WHERE uhr.role.name = :role)
+    """)
+    int incrementTokenVersionByRole(@Param("role") RoleType role);
 }
@@ -0,0 +1,49 @@
+package com.training.demo.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Đo thời gian hash BCrypt trên phần cứng hiện tại để chọn cost (strength) phù hợp với latency mục tiêu.
+ * Mỗi lần tăng strength thêm 1 thì thời gian hash tăng gấp đôi.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    /**
+     * Chọn strength lớn nhất có thời gian hash không vượt quá targetLatencyMs
+     *
+     * @param targetLatencyMs latency mục tiêu cho một lần hash
+     * @param minStrength     strength tối thiểu (ngưỡng bảo mật)
+     * @param maxStrength     strength tối đa
+     * @return strength đã chọn
+     */
+    public static int calibrate(long targetLatencyMs, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            probe.encode("calibration-warmup");
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double baseMs = Math.max(best / 1_000_000.0, 0.001);
+        int extra = (int) Math.floor(Math.log(targetLatencyMs / baseMs) / Math.log(2));
+        int strength = Math.max(minStrength, Math.min(maxStrength, minStrength + extra));
+
+        log.info("BCrypt calibration: strength {} takes ~{} ms, selected strength {} (~{} ms, target {} ms)",
+                minStrength, String.format("%.1f", baseMs), strength,
+                String.format("%.1f", baseMs * Math.pow(2, strength - minStrength)), targetLatencyMs);
+        return strength;
+    }
+}
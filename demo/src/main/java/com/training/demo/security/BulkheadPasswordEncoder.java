@@ -0,0 +1,118 @@
+package com.training.demo.security;
+
+import com.training.demo.exception.TooManyRequestsException;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.helpers.metrics.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PasswordEncoder chạy hash/verify trên executor riêng có giới hạn (bulkhead),
+ * để một đợt login dồn dập không chiếm hết CPU/thread của Tomcat.
+ * Hàng đợi đầy hoặc chờ quá lâu sẽ trả về 429 ngay.
+ */
+public class BulkheadPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final long waitTimeoutMs;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Timer waitTimer;
+    private final MetricsRegistry metrics;
+
+    public BulkheadPasswordEncoder(PasswordEncoder delegate,
+                                   ThreadPoolTaskExecutor executor,
+                                   long waitTimeoutMs,
+                                   MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.metrics = metrics;
+        this.hashTimer = metrics.timer("password.hash.latency");
+        this.verifyTimer = metrics.timer("password.verify.latency");
+        this.waitTimer = metrics.timer("password.queue.wait");
+        metrics.gauge("password.queue.depth", executor::getQueueSize);
+        metrics.gauge("password.active", executor::getActiveCount);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), hashTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), verifyTimer);
+    }
+
+    /**
+     * Hash bất đồng bộ, không chặn thread gọi. Nếu hàng đợi đầy thì future thất bại ngay.
+     *
+     * @param rawPassword mật khẩu gốc
+     * @return future chứa chuỗi hash
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return delegate.encode(rawPassword);
+                } finally {
+                    hashTimer.recordSince(start);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            metrics.counter("password.rejected").increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task, Timer timer) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.recordSince(enqueuedAt);
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    timer.recordSince(start);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            metrics.counter("password.rejected").increment();
+            throw new TooManyRequestsException("Too many requests, please try again later");
+        }
+
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            metrics.counter("password.timeout").increment();
+            throw new TooManyRequestsException("Too many requests, please try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
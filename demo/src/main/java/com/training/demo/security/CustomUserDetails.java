@@ -4,8 +4,10 @@ import com.training.demo.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 
 @Getter
@@ -53,4 +55,24 @@ public class CustomUserDetails implements UserDetails {
     public Long getId() {
         return user.getId();
     }
+
+    /**
+     * Dựng principal từ claims của accessToken stateless (không truy vấn DB)
+     *
+     * @param claims claims đã verify
+     * @return CustomUserDetails chỉ chứa id, username và authorities
+     */
+    public static CustomUserDetails fromClaims(JwtClaims claims) {
+        User user = User.builder()
+                .username(claims.getSubject())
+                .build();
+        user.setId(claims.getUserId());
+
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        claims.getRoles().forEach(role -> authorities.add(new SimpleGrantedAuthority(role)));
+        if (authorities.isEmpty()) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+        }
+        return new CustomUserDetails(user, authorities);
+    }
 }
@@ -20,15 +20,30 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
+        if (!userExistenceFilter.mightContainUsername(username)) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+
         log.info("Loading user by username in database running with username: {}", username);
 
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
+        return new CustomUserDetails(user, toAuthorities(user));
+    }
+
+    /**
+     * Map role của user sang authorities (ROLE_xxx), mặc định ROLE_USER nếu user chưa có role
+     *
+     * @param user user đã load
+     * @return tập authorities
+     */
+    public static Set<GrantedAuthority> toAuthorities(User user) {
         Set<GrantedAuthority> authorities = new java.util.HashSet<>(user.getUserHasRoles() != null ?
                 user.getUserHasRoles().stream()
                         .map(UserHasRole::getRole)
@@ -39,6 +54,6 @@ public class CustomUserDetailsService implements UserDetailsService {
             authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
         }
 
-        return new CustomUserDetails(user, authorities);
+        return authorities;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package com.training.demo.security;
+
+import com.training.demo.config.OtpProperties;
+import com.training.demo.utils.enums.OtpMode;
+import com.training.demo.utils.enums.OtpType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP không lưu mã (otp.mode=HMAC): mã OTP dẫn xuất kiểu TOTP từ HMAC-SHA256(email, type, cửa sổ thời gian,
+ * số thứ tự lần cấp), verify key là token ngắn "payload.chữ ký" (payload = email, hạn dùng, jti).
+ * Redis chỉ còn giữ bộ đếm gửi, số thứ tự lần cấp và marker đánh dấu OTP/jti đã dùng.
+ * Khóa vẫn được nạp khi otp.secret có giá trị ở chế độ STORED, để verify key đã ký trước khi đổi chế độ vẫn dùng được.
+ */
+@Component
+@RequiredArgsConstructor
+public class HmacOtpCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // 128 bit chữ ký là đủ cho token sống vài phút, giữ verify key ngắn
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int MAX_CODE_LENGTH = 9;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final OtpProperties otpProperties;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            if (!StringUtils.hasText(otpProperties.getSecret())) {
+                throw new IllegalStateException("otp.secret is required when otp.mode=HMAC");
+            }
+            if (otpProperties.getOtpLength() < 1 || otpProperties.getOtpLength() > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("otp.otp-length must be between 1 and " + MAX_CODE_LENGTH + " when otp.mode=HMAC");
+            }
+        }
+        if (StringUtils.hasText(otpProperties.getSecret())) {
+            key = new SecretKeySpec(Base64.getDecoder().decode(otpProperties.getSecret()), ALGORITHM);
+        }
+    }
+
+    public boolean isEnabled() {
+        return otpProperties.getMode() == OtpMode.HMAC;
+    }
+
+    /**
+     * Cửa sổ thời gian hiện tại (độ rộng = otp.expiry-minutes)
+     */
+    public long currentWindow() {
+        return System.currentTimeMillis() / windowMillis();
+    }
+
+    /**
+     * Mã OTP của email + type trong một cửa sổ (dynamic truncation như HOTP/TOTP).
+     * Số thứ tự lần cấp làm mỗi lần gửi lại trong cùng cửa sổ ra một mã khác.
+     */
+    public String code(String email, OtpType type, long window, long issue) {
+        byte[] hash = mac("otp|" + email + "|" + type.name() + "|" + window + "|" + issue);
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        int length = otpProperties.getOtpLength();
+        long code = binary % (long) Math.pow(10, length);
+        return String.format("%0" + length + "d", code);
+    }
+
+    /**
+     * So khớp OTP với cửa sổ hiện tại và cửa sổ liền trước (mã cấp cuối cửa sổ vẫn dùng được đủ một cửa sổ)
+     *
+     * @return cửa sổ khớp, empty nếu sai mã hoặc đã hết hạn
+     */
+    public OptionalLong match(String email, OtpType type, long issue, String input) {
+        if (input == null) {
+            return OptionalLong.empty();
+        }
+        byte[] inputBytes = input.getBytes(StandardCharsets.UTF_8);
+        long current = currentWindow();
+        for (long window = current; window >= current - 1; window--) {
+            if (MessageDigest.isEqual(code(email, type, window, issue).getBytes(StandardCharsets.UTF_8), inputBytes)) {
+                return OptionalLong.of(window);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Thời gian sống (s) của hash OTP kể từ lần cấp: mã cấp trong một cửa sổ còn hiệu lực tới hết cửa sổ kế tiếp
+     */
+    public long issueTtlSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(2 * windowMillis());
+    }
+
+    /**
+     * Cấp verify key ký HMAC, hạn dùng otp.verify-key-expiry-minutes
+     */
+    public String issueVerifyKey(String email) {
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(otpProperties.getVerifyKeyExpiryMinutes());
+        String payload = ENCODER.encodeToString(
+                (email + "\n" + expiresAt + "\n" + JwtProvider.newTokenId()).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(signature(payload));
+    }
+
+    /**
+     * Kiểm tra chữ ký + hạn dùng của verify key
+     *
+     * @return claims, empty nếu sai định dạng, sai chữ ký hoặc đã hết hạn
+     */
+    public Optional<VerifyKeyClaims> parseVerifyKey(String token) {
+        int dot = token.indexOf('.');
+        if (key == null || dot <= 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(signature(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\n");
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+            VerifyKeyClaims claims = new VerifyKeyClaims(parts[0], Long.parseLong(parts[1]), parts[2]);
+            return claims.expiresAt() > System.currentTimeMillis() ? Optional.of(claims) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Verify key có dạng token ký (payload.chữ ký) thay vì UUID lưu trong Redis
+     */
+    public static boolean isSignedVerifyKey(String token) {
+        return token != null && token.indexOf('.') > 0;
+    }
+
+    private long windowMillis() {
+        return TimeUnit.MINUTES.toMillis(Math.max(1, otpProperties.getExpiryMinutes()));
+    }
+
+    private byte[] signature(String payload) {
+        return Arrays.copyOf(mac("vk|" + payload), SIGNATURE_BYTES);
+    }
+
+    private byte[] mac(String data) {
+        if (key == null) {
+            throw new IllegalStateException("otp.secret is not configured");
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute OTP HMAC", e);
+        }
+    }
+
+    /**
+     * Nội dung verify key đã ký
+     *
+     * @param email     email đã xác thực OTP
+     * @param expiresAt hạn dùng (epoch millis)
+     * @param jti       id dùng một lần
+     */
+    public record VerifyKeyClaims(String email, long expiresAt, String jti) {
+    }
+}
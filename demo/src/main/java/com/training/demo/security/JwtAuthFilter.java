@@ -1,8 +1,10 @@
 package com.training.demo.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.training.demo.config.SecurityConfig;
+import com.training.demo.dto.response.System.BaseResponse;
 import com.training.demo.exception.TokenException;
-import com.training.demo.service.RedisService;
+import com.training.demo.helpers.redis.ReactiveRedisAdapter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,70 +12,76 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final PublicRouteMatcher PUBLIC_ROUTES = PublicRouteMatcher.compile(SecurityConfig.PUBLIC_URL);
+
     private final JwtProvider jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
-    private final RedisService redisService;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final PrincipalCache principalCache;
+    private final SessionRegistry sessionRegistry;
+    private final TokenDenylist tokenDenylist;
+    private final TokenVersionCache tokenVersionCache;
+    private final ReactiveRedisAdapter reactiveRedisAdapter;
+    private final ObjectMapper objectMapper;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        String path = request.getServletPath();
-        return Arrays.stream(SecurityConfig.PUBLIC_URL)
-                .anyMatch(pattern -> pathMatcher.match(pattern, path));
+        return PUBLIC_ROUTES.matches(request.getServletPath());
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
-        log.info("======== JwtAuthFilter Running ========");
-
         String header = request.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            String token = header.substring(BEARER_PREFIX.length());
 
             try {
-                // validate token
-                if (jwtTokenProvider.validateToken(token, true)) {
-                    String username = jwtTokenProvider.getUsernameFromToken(token, true);
-
-                    String redisKey = "access:" + username;
-                    var accessValue = redisService.get(redisKey, String.class);
-
-                    if (accessValue.isEmpty() || !accessValue.get().equals(token)) {
-                        throw new TokenException("Access token has been revoked or expired");
-                    }
-
-                    //load user from DB (UserDetailsService)
-                    var userDetails = userDetailsService.loadUserByUsername(username);
+                // verify token và lấy claims trong một lần parse
+                JwtClaims claims = jwtTokenProvider.verifyAndExtract(token, true);
+                CustomUserDetails userDetails;
+                if (jwtTokenProvider.isStatelessAccess()) {
+                    checkTokenVersion(claims);
+                    userDetails = authenticateStateless(claims);
+                } else {
+                    // gửi HGET phiên trước, token version (cache local, có thể fallback DB) được kiểm tra trong lúc chờ Redis
+                    var session = reactiveRedisAdapter.start(sessionRegistry.findAsync(claims.getSubject(), claims.getSessionId()));
+                    checkTokenVersion(claims);
+                    userDetails = authenticateStateful(claims, session);
+                }
 
-                    //build Authentication
-                    var auth = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
+                //build Authentication
+                var auth = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
 
-                    //set Authentication into context
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
+                //set Authentication into context
+                SecurityContextHolder.getContext().setAuthentication(auth);
             } catch (TokenException ex) {
                 log.warn("[JWT] {}", ex.getMessage()); // không in trace
+            } catch (DataAccessException ex) {
+                // Redis chậm/mất kết nối (blocking hay reactive) không phải lỗi token: trả 503 thay vì 500
+                log.warn("[JWT] Redis unavailable: {}", ex.getMessage());
+                writeServiceUnavailable(response);
+                return;
             } catch (Exception ex) {
 //                log.error("[JWT] Unexpected error: {}", ex.getMessage());
                 throw new BadCredentialsException("Invalid authentication process");
@@ -81,4 +89,50 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private void writeServiceUnavailable(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        objectMapper.writeValue(response.getOutputStream(),
+                BaseResponse.failure("Service temporarily unavailable, please retry", null));
+    }
+
+    /**
+     * Stateful: so sánh jti với accessJti của phiên (sid) trong session hash và load principal (có cache)
+     */
+    private CustomUserDetails authenticateStateful(JwtClaims claims, CompletableFuture<Optional<SessionRecord>> pending) {
+        String username = claims.getSubject();
+
+        Optional<SessionRecord> session = reactiveRedisAdapter.await(pending);
+        if (session.isEmpty() || !session.get().accessJti().equals(claims.getJti())) {
+            throw new TokenException("Access token has been revoked or expired");
+        }
+
+        //load user từ principal cache (fallback DB)
+        return principalCache.getOrLoad(username);
+    }
+
+    /**
+     * Stateless: principal dựng từ claims, chỉ chạm Redis khi Bloom filter của denylist báo có thể trùng
+     */
+    private CustomUserDetails authenticateStateless(JwtClaims claims) {
+        Integer version = claims.getVersion();
+        if (claims.getUserId() == null || version == null || version != JwtProvider.TOKEN_VERSION) {
+            throw new TokenException("Unsupported token version");
+        }
+        if (tokenDenylist.isRevoked(claims.getJti())) {
+            throw new TokenException("Access token has been revoked or expired");
+        }
+        return CustomUserDetails.fromClaims(claims);
+    }
+
+    /**
+     * So khớp token version trong claims với version hiện tại của user (cache local, không round trip)
+     */
+    private void checkTokenVersion(JwtClaims claims) {
+        Long tokenVersion = claims.getTokenVersion();
+        if (tokenVersion == null || tokenVersion != tokenVersionCache.current(claims.getSubject())) {
+            throw new TokenException("Access token has been revoked or expired");
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package com.training.demo.security;
+
+import lombok.Builder;
+import lombok.Getter;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * View bất biến của các claim đã được verify chữ ký
+ */
+@Getter
+@Builder
+public class JwtClaims {
+    private final String subject;
+    private final Long userId;
+    private final List<String> roles;
+    private final Integer version;
+    private final Long tokenVersion;
+    private final String jti;
+    private final String sessionId;
+    private final Instant expiration;
+}
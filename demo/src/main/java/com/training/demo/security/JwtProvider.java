@@ -2,21 +2,33 @@ package com.training.demo.security;
 
 import com.training.demo.entity.User;
 import com.training.demo.exception.TokenException;
+import com.training.demo.helpers.cache.BoundedExpiringCache;
+import com.training.demo.utils.enums.AccessTokenMode;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class JwtProvider {
 
+    /** Phiên bản cấu trúc claims của accessToken stateless */
+    public static final int TOKEN_VERSION = 1;
+
     @Value("${jwt.accessKey}")
     private String accessKeyBase64;
 
@@ -29,45 +41,95 @@ public class JwtProvider {
     @Value("${jwt.expiryDay}")
     private long expiryDay;
 
+    @Value("${jwt.verifiedCacheSize:10000}")
+    private int verifiedCacheSize;
+
+    @Value("${jwt.accessMode:STATEFUL}")
+    private AccessTokenMode accessMode;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     private Key accessKey;
     private Key refreshKey;
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
+    private BoundedExpiringCache<String, JwtClaims> verifiedAccessTokens;
 
     @PostConstruct
     public void init() {
         accessKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(accessKeyBase64));
         refreshKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(refreshKeyBase64));
+        accessParser = Jwts.parserBuilder().setSigningKey(accessKey).build();
+        refreshParser = Jwts.parserBuilder().setSigningKey(refreshKey).build();
+        verifiedAccessTokens = new BoundedExpiringCache<>(verifiedCacheSize);
+    }
+
+    /**
+     * Sinh id mới cho token (jti) hoặc phiên đăng nhập (sid). Redis chỉ lưu jti (36 ký tự) thay vì cả chuỗi JWT
+     */
+    public static String newTokenId() {
+        return UUID.randomUUID().toString();
     }
 
     public String generateAccessToken(User user) {
-        log.info("Generating accessToken running");
+        return generateAccessToken(user, newTokenId(), newTokenId());
+    }
+
+    public String generateAccessToken(User user, String sessionId, String jti) {
+        log.debug("Generating accessToken running");
 
-        String roles = user.getUserHasRoles().stream()
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sid", sessionId);
+        claims.put("tv", user.getTokenVersion());
+        claims.put("roles", user.getUserHasRoles().stream()
                 .map(role -> "ROLE_" + role.getRole().getName())
-                .collect(Collectors.joining(","));
-        return buildToken(user.getUsername(), roles, accessKey, getAccessTokenExpiryDate());
+                .collect(Collectors.joining(",")));
+
+        // stateless: token tự mang đủ thông tin để dựng principal mà không cần DB/Redis
+        if (isStatelessAccess()) {
+            claims.put("uid", user.getId());
+            claims.put("ver", TOKEN_VERSION);
+        }
+        return buildToken(jti, user.getUsername(), claims, accessKey, getAccessTokenExpiryDate());
     }
 
-    public String generateRefreshToken(String username) {
-        log.info("Generating refreshToken running");
+    public String generateRefreshToken(User user) {
+        return generateRefreshToken(user, newTokenId(), newTokenId());
+    }
 
-        return buildToken(username, null, refreshKey, getRefreshTokenExpiryDate());
+    public String generateRefreshToken(User user, String sessionId, String jti) {
+        log.debug("Generating refreshToken running");
+
+        Map<String, Object> claims = Map.of("sid", sessionId, "tv", user.getTokenVersion());
+        return buildToken(jti, user.getUsername(), claims, refreshKey, getRefreshTokenExpiryDate());
     }
 
-    private String buildToken(String subject, String roles, Key key, Date expiryDate) {
+    private String buildToken(String jti, String subject, Map<String, Object> claims, Key key, Date expiryDate) {
         JwtBuilder builder = Jwts.builder()
-                .setId(java.util.UUID.randomUUID().toString())
+                .setId(jti)
                 .setSubject(subject)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(key, SignatureAlgorithm.HS512);
 
-        if (roles != null) {
-            builder.claim("roles", roles);
-        }
+        claims.forEach(builder::claim);
 
         return builder.compact();
     }
 
+    /**
+     * AccessToken có được xác thực ở chế độ stateless (không tra Redis mỗi request) hay không
+     */
+    public boolean isStatelessAccess() {
+        return accessMode == AccessTokenMode.STATELESS;
+    }
+
     public Date getAccessTokenExpiryDate() {
         long expiryMillis = System.currentTimeMillis() + 1000 * 60 * expiryMinutes;
         return new Date(expiryMillis);
@@ -78,14 +140,58 @@ public class JwtProvider {
         return new Date(expiryMillis);
     }
 
+    /**
+     * Verify chữ ký và trích xuất claims trong một lần parse.
+     * AccessToken đã verify được cache theo digest của token cho tới khi hết hạn.
+     *
+     * @param token         JWT
+     * @param isAccessToken true nếu là accessToken
+     * @return claims bất biến của token
+     */
+    public JwtClaims verifyAndExtract(String token, boolean isAccessToken) {
+        if (token == null || token.isEmpty()) {
+            throw new TokenException("Token is empty or null");
+        }
+        if (!isAccessToken) {
+            return toJwtClaims(parseClaims(token, refreshParser));
+        }
+
+        String digest = digest(token);
+        JwtClaims cached = verifiedAccessTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        JwtClaims claims = toJwtClaims(parseClaims(token, accessParser));
+        verifiedAccessTokens.put(digest, claims, claims.getExpiration().toEpochMilli());
+        return claims;
+    }
+
     public boolean validateToken(String token, boolean isAccessToken) {
+        verifyAndExtract(token, isAccessToken);
+        return true;
+    }
+
+    public String getUsernameFromToken(String token, boolean isAccessToken) {
+        return verifyAndExtract(token, isAccessToken).getSubject();
+    }
+
+    public String getRolesFromToken(String token) {
+        return String.join(",", verifyAndExtract(token, true).getRoles());
+    }
+
+    public boolean isTokenExpired(String token, boolean isAccessToken) {
         try {
-            Key key = isAccessToken ? accessKey : refreshKey;
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
+            JwtParser parser = isAccessToken ? accessParser : refreshParser;
+            return parser.parseClaimsJws(token).getBody().getExpiration().before(new Date());
+        } catch (ExpiredJwtException e) {
             return true;
+        }
+    }
+
+    private Claims parseClaims(String token, JwtParser parser) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             throw new TokenException("Token has expired");
         } catch (MalformedJwtException e) {
@@ -99,30 +205,24 @@ public class JwtProvider {
         }
     }
 
-    public String getUsernameFromToken(String token, boolean isAccessToken) {
-        Claims claims = extractAllClaims(token, isAccessToken);
-        return claims.getSubject();
-    }
-
-    public String getRolesFromToken(String token) {
-        Claims claims = extractAllClaims(token, true);
-        return claims.get("roles", String.class);
-    }
-
-    public boolean isTokenExpired(String token, boolean isAccessToken) {
-        try {
-            return extractAllClaims(token, isAccessToken).getExpiration().before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
-        }
+    private JwtClaims toJwtClaims(Claims claims) {
+        String roles = claims.get("roles", String.class);
+        return JwtClaims.builder()
+                .subject(claims.getSubject())
+                .userId(claims.get("uid", Long.class))
+                .roles(roles == null || roles.isEmpty() ? List.of() : List.of(roles.split(",")))
+                .version(claims.get("ver", Integer.class))
+                .jti(claims.getId())
+                .sessionId(claims.get("sid", String.class))
+                .tokenVersion(claims.get("tv", Long.class))
+                .expiration(claims.getExpiration().toInstant())
+                .build();
     }
 
-    private Claims extractAllClaims(String token, boolean isAccessToken) {
-        Key key = isAccessToken ? accessKey : refreshKey;
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return Base64.getEncoder().withoutPadding()
+                .encodeToString(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 }
@@ -0,0 +1,14 @@
+package com.training.demo.security;
+
+/**
+ * Sinh mã OTP ngẫu nhiên cho chế độ STORED (độ dài và bảng ký tự lấy từ OtpProperties)
+ */
+public interface OtpCodeGenerator {
+
+    /**
+     * Sinh một mã OTP mới
+     *
+     * @return mã OTP
+     */
+    String generate();
+}
@@ -0,0 +1,46 @@
+package com.training.demo.security;
+
+import com.training.demo.entity.User;
+import com.training.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rehash mật khẩu sau khi login thành công nếu hash đang lưu dùng thuật toán/cost cũ hơn cấu hình hiện tại.
+ * Chạy bất đồng bộ trên executor hash, không làm chậm response login.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordUpgrader {
+
+    private final BulkheadPasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+
+    /**
+     * Nâng cấp hash nếu cần (best-effort, bỏ qua khi executor đang quá tải)
+     *
+     * @param user        user vừa login thành công
+     * @param rawPassword mật khẩu gốc vừa được verify
+     */
+    public void upgradeIfNeeded(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        if (currentHash == null || !passwordEncoder.upgradeEncoding(currentHash)) {
+            return;
+        }
+
+        passwordEncoder.encodeAsync(rawPassword)
+                .thenAccept(newHash -> {
+                    // chỉ ghi đè khi hash chưa bị đổi bởi changePassword trong lúc chờ
+                    int updated = userRepository.updatePasswordIfUnchanged(user.getId(), currentHash, newHash);
+                    if (updated == 1) {
+                        log.info("Upgraded password hash for userId: {}", user.getId());
+                    }
+                })
+                .exceptionally(ex -> {
+                    log.debug("Skip password hash upgrade for userId: {}: {}", user.getId(), ex.getMessage());
+                    return null;
+                });
+    }
+}
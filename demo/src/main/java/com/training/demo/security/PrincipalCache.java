@@ -0,0 +1,89 @@
+package com.training.demo.security;
+
+import com.training.demo.helpers.cache.BoundedExpiringCache;
+import com.training.demo.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache in-process cho {@link CustomUserDetails} dùng bởi {@link JwtAuthFilter}.
+ * Việc invalidate được broadcast qua Redis pub/sub để mọi node cùng xóa entry.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    public static final String INVALIDATION_CHANNEL = "principal:invalidate";
+
+    private final CustomUserDetailsService userDetailsService;
+    private final RedisService redisService;
+    private final BoundedExpiringCache<String, CustomUserDetails> cache;
+    private final long ttlMillis;
+
+    public PrincipalCache(CustomUserDetailsService userDetailsService,
+                          RedisService redisService,
+                          @Value("${principal-cache.max-size:10000}") int maxSize,
+                          @Value("${principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.redisService = redisService;
+        this.cache = new BoundedExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Lấy principal từ cache, nếu chưa có thì load từ DB
+     *
+     * @param username username
+     * @return CustomUserDetails
+     */
+    public CustomUserDetails getOrLoad(String username) {
+        CustomUserDetails cached = cache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        CustomUserDetails loaded = (CustomUserDetails) userDetailsService.loadUserByUsername(username);
+        cache.put(username, loaded, System.currentTimeMillis() + ttlMillis);
+        return loaded;
+    }
+
+    /**
+     * Invalidate principal trên mọi node. Nếu đang trong transaction thì chờ commit xong mới invalidate
+     * để request khác không load lại dữ liệu cũ vào cache.
+     *
+     * @param username username cần invalidate
+     */
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(username);
+                }
+            });
+        } else {
+            evictAndPublish(username);
+        }
+    }
+
+    /**
+     * Chỉ xóa entry ở node hiện tại (được gọi từ listener pub/sub)
+     *
+     * @param username username cần xóa
+     */
+    public void evictLocal(String username) {
+        log.debug("Evict principal cache for username: {}", username);
+        cache.invalidate(username);
+    }
+
+    private void evictAndPublish(String username) {
+        evictLocal(username);
+        try {
+            redisService.publish(INVALIDATION_CHANNEL, username);
+        } catch (Exception e) {
+            log.warn("Failed to publish principal invalidation for username: {}", username, e);
+        }
+    }
+}
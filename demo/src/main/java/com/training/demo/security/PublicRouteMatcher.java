@@ -0,0 +1,91 @@
+package com.training.demo.security;
+
+import org.springframework.util.AntPathMatcher;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matcher cho danh sách public route, được compile một lần từ các Ant pattern.
+ * Path tĩnh tra bằng HashSet, pattern dạng "/prefix/**" so khớp prefix; chỉ pattern phức tạp hơn mới dùng AntPathMatcher.
+ * Đường đi phổ biến không cấp phát object nào.
+ */
+public final class PublicRouteMatcher {
+
+    private static final String ANY_SUFFIX = "/**";
+    private static final String EMPTY_SEGMENT = "//";
+
+    private final Set<String> exactPaths;
+    private final String[] prefixes;
+    private final String[] prefixesWithSlash;
+    private final String[] antPatterns;
+    private final String[] allPatterns;
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    private PublicRouteMatcher(Set<String> exactPaths, List<String> prefixes, List<String> antPatterns, String[] allPatterns) {
+        this.exactPaths = Set.copyOf(exactPaths);
+        this.prefixes = prefixes.toArray(String[]::new);
+        this.prefixesWithSlash = prefixes.stream().map(prefix -> prefix + "/").toArray(String[]::new);
+        this.antPatterns = antPatterns.toArray(String[]::new);
+        this.allPatterns = allPatterns.clone();
+    }
+
+    /**
+     * Compile danh sách Ant pattern
+     *
+     * @param patterns các pattern (vd: SecurityConfig.PUBLIC_URL)
+     * @return matcher
+     */
+    public static PublicRouteMatcher compile(String... patterns) {
+        Set<String> exact = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        List<String> antPatterns = new ArrayList<>();
+
+        for (String pattern : patterns) {
+            if (pattern.endsWith(ANY_SUFFIX) && !hasWildcard(pattern.substring(0, pattern.length() - ANY_SUFFIX.length()))) {
+                prefixes.add(pattern.substring(0, pattern.length() - ANY_SUFFIX.length()));
+            } else if (!hasWildcard(pattern)) {
+                exact.add(pattern);
+            } else {
+                antPatterns.add(pattern);
+            }
+        }
+        return new PublicRouteMatcher(exact, prefixes, antPatterns, patterns);
+    }
+
+    /**
+     * Kiểm tra path có thuộc public route hay không (cùng ngữ nghĩa với AntPathMatcher)
+     *
+     * @param path servlet path
+     * @return true nếu là public route
+     */
+    public boolean matches(String path) {
+        // AntPathMatcher bỏ qua segment rỗng ("//api/auth/login" khớp "/api/auth/login"): path hiếm này đi đường chậm
+        if (path.contains(EMPTY_SEGMENT)) {
+            return matchesAny(allPatterns, path);
+        }
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+        for (int i = 0; i < prefixes.length; i++) {
+            if (path.startsWith(prefixesWithSlash[i]) || path.equals(prefixes[i])) {
+                return true;
+            }
+        }
+        return matchesAny(antPatterns, path);
+    }
+
+    private boolean matchesAny(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (antPathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('{') >= 0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.training.demo.security;
+
+import com.training.demo.config.OtpProperties;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OtpCodeGenerator dùng một SecureRandom dùng chung và ring buffer mã OTP sinh sẵn.
+ * Một thread nền duy nhất nạp buffer (lấy entropy theo khối, bỏ byte lệch để mỗi ký tự phân phối đều),
+ * các thread request lấy mã bằng CAS trên chỉ số đọc nên không bao giờ chờ SecureRandom.
+ * Khi buffer cạn, mã được sinh trực tiếp bằng SecureRandom thay vì chờ nạp.
+ */
+@Component
+public class SecureRandomOtpCodeGenerator implements OtpCodeGenerator {
+
+    private static final int MAX_ALPHABET_SIZE = 256;
+    private static final int RANDOM_CHUNK_BYTES = 512;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final char[] alphabet;
+    private final int length;
+    // byte ngẫu nhiên >= acceptBound bị bỏ để phép modulo không lệch về đầu bảng ký tự
+    private final int acceptBound;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong readIndex = new AtomicLong();
+    // chỉ thread nạp ghi
+    private volatile long writeIndex;
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final ExecutorService refiller;
+    private final LongAdder inlineFallbacks;
+
+    // chỉ thread nạp dùng
+    private final byte[] randomChunk = new byte[RANDOM_CHUNK_BYTES];
+    private int randomPosition = RANDOM_CHUNK_BYTES;
+
+    public SecureRandomOtpCodeGenerator(OtpProperties otpProperties, MetricsRegistry metricsRegistry) {
+        String configuredAlphabet = otpProperties.getOtpAlphabet();
+        if (configuredAlphabet == null || configuredAlphabet.isEmpty() || configuredAlphabet.length() > MAX_ALPHABET_SIZE
+                || configuredAlphabet.chars().distinct().count() != configuredAlphabet.length()) {
+            throw new IllegalStateException("otp.otp-alphabet must contain 1 to " + MAX_ALPHABET_SIZE + " distinct characters");
+        }
+        if (otpProperties.getOtpLength() < 1) {
+            throw new IllegalStateException("otp.otp-length must be positive");
+        }
+        this.alphabet = configuredAlphabet.toCharArray();
+        this.length = otpProperties.getOtpLength();
+        this.acceptBound = MAX_ALPHABET_SIZE - MAX_ALPHABET_SIZE % alphabet.length;
+
+        int capacity = Integer.highestOneBit(Math.max(2, otpProperties.getCodeBufferSize() - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.inlineFallbacks = metricsRegistry.counter("otp.generator.inline-fallbacks");
+        this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-code-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refill();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    @Override
+    public String generate() {
+        long read;
+        do {
+            read = readIndex.get();
+            if (read >= writeIndex) {
+                requestRefill();
+                inlineFallbacks.increment();
+                return generateInline();
+            }
+        } while (!readIndex.compareAndSet(read, read + 1));
+
+        String code = slots.getAndSet((int) (read & mask), null);
+        if (writeIndex - read <= slots.length() / 2) {
+            requestRefill();
+        }
+        return code != null ? code : generateInline();
+    }
+
+    //========= PRIVATE METHOD =========//
+
+    private void requestRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            try {
+                refiller.execute(this::refill);
+            } catch (RuntimeException e) {
+                // executor đã shutdown: các lần gọi sau sinh trực tiếp
+                refillScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Nạp buffer tới khi đầy. Slot chỉ được ghi khi consumer đã lấy mã cũ ra (slot null),
+     * nên một mã không bao giờ bị ghi đè hay được trả cho hai request.
+     */
+    private void refill() {
+        try {
+            long write = writeIndex;
+            while (write - readIndex.get() < slots.length()) {
+                int slot = (int) (write & mask);
+                if (slots.get(slot) != null) {
+                    break;
+                }
+                slots.set(slot, nextBufferedCode());
+                writeIndex = ++write;
+            }
+        } finally {
+            refillScheduled.set(false);
+        }
+    }
+
+    private String nextBufferedCode() {
+        char[] code = new char[length];
+        int i = 0;
+        while (i < length) {
+            if (randomPosition == randomChunk.length) {
+                secureRandom.nextBytes(randomChunk);
+                randomPosition = 0;
+            }
+            int value = randomChunk[randomPosition++] & 0xff;
+            if (value < acceptBound) {
+                code[i++] = alphabet[value % alphabet.length];
+            }
+        }
+        return new String(code);
+    }
+
+    private String generateInline() {
+        char[] code = new char[length];
+        for (int i = 0; i < length; i++) {
+            code[i] = alphabet[secureRandom.nextInt(alphabet.length)];
+        }
+        return new String(code);
+    }
+}
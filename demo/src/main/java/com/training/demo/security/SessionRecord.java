@@ -0,0 +1,44 @@
+package com.training.demo.security;
+
+import java.time.Instant;
+
+/**
+ * Một phiên đăng nhập (một thiết bị) trong hash session của user.
+ * Được lưu dưới dạng chuỗi "accessJti|refreshJti|accessExp|refreshExp|createdAt" để script Lua đọc/ghi trực tiếp.
+ *
+ * @param accessJti        jti của accessToken hiện tại
+ * @param refreshJti       jti của refreshToken hiện tại
+ * @param accessExpiresAt  thời điểm hết hạn accessToken (epoch millis)
+ * @param refreshExpiresAt thời điểm hết hạn refreshToken (epoch millis)
+ * @param createdAt        thời điểm đăng nhập (epoch millis)
+ */
+public record SessionRecord(String accessJti,
+                            String refreshJti,
+                            long accessExpiresAt,
+                            long refreshExpiresAt,
+                            long createdAt) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        return accessJti + SEPARATOR + refreshJti + SEPARATOR + accessExpiresAt
+                + SEPARATOR + refreshExpiresAt + SEPARATOR + createdAt;
+    }
+
+    public static SessionRecord decode(String value) {
+        String[] parts = value.split("\\|");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Invalid session record");
+        }
+        return new SessionRecord(parts[0], parts[1],
+                Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return refreshExpiresAt <= nowMillis;
+    }
+
+    public Instant accessExpiration() {
+        return Instant.ofEpochMilli(accessExpiresAt);
+    }
+}
@@ -0,0 +1,158 @@
+package com.training.demo.security;
+
+import com.training.demo.service.ReactiveRedisService;
+import com.training.demo.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import static com.training.demo.utils.RedisKeySchema.sessionKey;
+
+/**
+ * Registry phiên đăng nhập đa thiết bị: mỗi user một Redis hash "session:{&lt;username&gt;}",
+ * mỗi field là sid của một thiết bị. Cặp token vừa xoay vòng của phiên nằm ở field "grace:&lt;sid&gt;" cùng hash.
+ * Đăng nhập trên thiết bị mới không làm mất phiên của thiết bị khác, logout mọi thiết bị chỉ là một lệnh DEL.
+ */
+@Component
+@Slf4j
+public class SessionRegistry {
+
+    public static final String GRACE_FIELD_PREFIX = "grace:";
+
+    private final RedisService redisService;
+    private final ReactiveRedisService reactiveRedisService;
+    private final RedisScript<List<Object>> registerSessionScript;
+    private final int maxSessionsPerUser;
+
+    public SessionRegistry(RedisService redisService,
+                           ReactiveRedisService reactiveRedisService,
+                           RedisScript<List<Object>> registerSessionScript,
+                           @Value("${session.max-per-user:5}") int maxSessionsPerUser) {
+        this.redisService = redisService;
+        this.reactiveRedisService = reactiveRedisService;
+        this.registerSessionScript = registerSessionScript;
+        this.maxSessionsPerUser = Math.max(1, maxSessionsPerUser);
+    }
+
+    /**
+     * Đăng ký phiên mới. Phiên đã hết hạn được dọn, nếu vượt quá số phiên tối đa thì phiên cũ nhất bị loại.
+     * Dọn dẹp, loại phiên, ghi phiên mới và gia hạn TTL của hash chạy trong một Lua script (scripts/register_session.lua),
+     * nên hai lần đăng nhập đồng thời không vượt được giới hạn số phiên.
+     *
+     * @param username   username
+     * @param sessionId  sid của phiên mới
+     * @param record     thông tin phiên
+     * @param ttlSeconds TTL của hash (theo refreshToken mới nhất)
+     * @return các phiên còn hiệu lực bị loại do vượt quá giới hạn
+     */
+    public List<SessionRecord> register(String username, String sessionId, SessionRecord record, long ttlSeconds) {
+        List<Object> result = redisService.execute(registerSessionScript, List.of(sessionKey(username)),
+                sessionId, record.encode(), ttlSeconds, maxSessionsPerUser, System.currentTimeMillis());
+
+        List<SessionRecord> evicted = new ArrayList<>();
+        if (result != null) {
+            result.forEach(value -> {
+                SessionRecord existing = decodeOrNull(value);
+                if (existing != null) {
+                    evicted.add(existing);
+                }
+            });
+        }
+
+        if (!evicted.isEmpty()) {
+            log.info("Evicted {} oldest session(s) of username: {}", evicted.size(), username);
+        }
+        return evicted;
+    }
+
+    /**
+     * Tìm phiên còn hiệu lực theo sid (một lệnh HGET)
+     *
+     * @param username  username
+     * @param sessionId sid
+     * @return Optional phiên, empty nếu không tồn tại hoặc đã hết hạn
+     */
+    public Optional<SessionRecord> find(String username, String sessionId) {
+        if (sessionId == null) {
+            return Optional.empty();
+        }
+        return redisService.getHashField(sessionKey(username), sessionId, String.class)
+                .map(SessionRecord::decode)
+                .filter(record -> !record.isExpired(System.currentTimeMillis()));
+    }
+
+    /**
+     * Giống {@link #find(String, String)} nhưng non-blocking, để caller chạy song song với việc khác
+     *
+     * @param username  username
+     * @param sessionId sid
+     * @return Mono phiên, empty nếu không tồn tại hoặc đã hết hạn
+     */
+    public Mono<SessionRecord> findAsync(String username, String sessionId) {
+        if (sessionId == null) {
+            return Mono.empty();
+        }
+        return reactiveRedisService.getHashField(sessionKey(username), sessionId, String.class)
+                .map(SessionRecord::decode)
+                .filter(record -> !record.isExpired(System.currentTimeMillis()));
+    }
+
+    /**
+     * Danh sách phiên còn hiệu lực của user
+     *
+     * @param username username
+     * @return các phiên còn hiệu lực
+     */
+    public List<SessionRecord> list(String username) {
+        long now = System.currentTimeMillis();
+        List<SessionRecord> sessions = new ArrayList<>();
+        redisService.getHash(sessionKey(username)).forEach((field, value) -> {
+            if (field.startsWith(GRACE_FIELD_PREFIX)) {
+                return;
+            }
+            SessionRecord record = decodeOrNull(value);
+            if (record != null && !record.isExpired(now)) {
+                sessions.add(record);
+            }
+        });
+        return sessions;
+    }
+
+    /**
+     * Xóa một phiên (logout thiết bị hiện tại) cùng field grace của phiên đó,
+     * để refreshToken vừa xoay vòng không còn được trả lại cặp token mới sau khi logout
+     *
+     * @param username  username
+     * @param sessionId sid
+     */
+    public void remove(String username, String sessionId) {
+        if (sessionId != null) {
+            redisService.deleteHashFields(sessionKey(username), sessionId, GRACE_FIELD_PREFIX + sessionId);
+        }
+    }
+
+    /**
+     * Xóa mọi phiên của user (logout mọi thiết bị) cùng field grace của từng phiên bằng một lệnh DEL
+     *
+     * @param username username
+     */
+    public void removeAll(String username) {
+        redisService.delete(sessionKey(username));
+    }
+
+    private SessionRecord decodeOrNull(Object value) {
+        if (!(value instanceof String str)) {
+            return null;
+        }
+        try {
+            return SessionRecord.decode(str);
+        } catch (IllegalArgumentException e) {
+            log.warn("Drop malformed session record: {}", e.getMessage());
+            return null;
+        }
+    }
+}
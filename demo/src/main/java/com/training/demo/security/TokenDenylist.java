@@ -0,0 +1,141 @@
+package com.training.demo.security;
+
+import com.training.demo.helpers.BloomFilter;
+import com.training.demo.service.RedisService;
+import com.training.demo.utils.RedisKeySchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Denylist jti của accessToken đã bị thu hồi (dùng ở chế độ stateless).
+ * Redis sorted set (score = thời điểm hết hạn) là nguồn dữ liệu chính, mỗi node giữ một Bloom filter local
+ * được đồng bộ tăng dần qua pub/sub, nên chỉ truy vấn Redis khi Bloom filter báo có thể trùng.
+ */
+@Component
+@Slf4j
+public class TokenDenylist {
+
+    public static final String DENYLIST_CHANNEL = "jwt:denylist";
+
+    private final RedisService redisService;
+    private final JwtProvider jwtProvider;
+    private final long expectedInsertions;
+    private final double fpp;
+
+    private volatile BloomFilter bloomFilter;
+    private volatile BloomFilter rebuilding;
+
+    public TokenDenylist(RedisService redisService,
+                         JwtProvider jwtProvider,
+                         @Value("${jwt.denylist.expectedInsertions:100000}") long expectedInsertions,
+                         @Value("${jwt.denylist.fpp:0.001}") double fpp) {
+        this.redisService = redisService;
+        this.jwtProvider = jwtProvider;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.bloomFilter = new BloomFilter(expectedInsertions, fpp);
+    }
+
+    /**
+     * Thu hồi một accessToken theo jti cho tới khi token hết hạn
+     *
+     * @param jti        jti của token
+     * @param expiration thời điểm hết hạn của token
+     */
+    public void revoke(String jti, Instant expiration) {
+        revokeAll(Map.of(jti, expiration));
+    }
+
+    /**
+     * Thu hồi nhiều accessToken. ZADD và PUBLISH của mọi jti được gửi trong một pipeline.
+     *
+     * @param expirations jti -> thời điểm hết hạn của token
+     */
+    public void revokeAll(Map<String, Instant> expirations) {
+        if (expirations.isEmpty()) {
+            return;
+        }
+        redisService.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                expirations.forEach((jti, expiration) -> {
+                    ops.opsForZSet().add(RedisKeySchema.TOKEN_DENYLIST_KEY, jti, expiration.toEpochMilli());
+                    ops.convertAndSend(DENYLIST_CHANNEL, jti);
+                });
+                return null;
+            }
+        });
+        expirations.keySet().forEach(this::addLocal);
+    }
+
+    /**
+     * Kiểm tra jti đã bị thu hồi chưa. Chỉ gọi Redis khi Bloom filter trả về "có thể có".
+     *
+     * @param jti jti của token
+     * @return true nếu token đã bị thu hồi
+     */
+    public boolean isRevoked(String jti) {
+        if (!bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        return redisService.getSortedSetScore(RedisKeySchema.TOKEN_DENYLIST_KEY, jti).isPresent();
+    }
+
+    /**
+     * Thêm jti vào Bloom filter local (được gọi từ listener pub/sub)
+     *
+     * @param jti jti bị thu hồi
+     */
+    public void addLocal(String jti) {
+        bloomFilter.put(jti);
+        BloomFilter pending = rebuilding;
+        if (pending != null) {
+            pending.put(jti);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (jwtProvider.isStatelessAccess()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Dọn jti đã hết hạn trong Redis và dựng lại Bloom filter (Bloom filter không hỗ trợ xóa phần tử)
+     */
+    @Scheduled(fixedDelayString = "${jwt.denylist.rebuildIntervalMs:600000}")
+    public void rebuild() {
+        if (!jwtProvider.isStatelessAccess()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            redisService.removeSortedSetRangeByScore(RedisKeySchema.TOKEN_DENYLIST_KEY, Double.NEGATIVE_INFINITY, now);
+
+            BloomFilter fresh = new BloomFilter(expectedInsertions, fpp);
+            rebuilding = fresh;
+            for (Object jti : redisService.rangeSortedSetByScore(RedisKeySchema.TOKEN_DENYLIST_KEY, now, Double.POSITIVE_INFINITY)) {
+                fresh.put(String.valueOf(jti));
+            }
+            bloomFilter = fresh;
+            rebuilding = null;
+            log.debug("Rebuilt token denylist bloom filter");
+        } catch (Exception e) {
+            rebuilding = null;
+            log.warn("Failed to rebuild token denylist: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.training.demo.security;
+
+import com.training.demo.exception.TokenException;
+import com.training.demo.helpers.cache.BoundedExpiringCache;
+import com.training.demo.repository.UserRepository;
+import com.training.demo.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache in-process của token version (cột token_version của user) dùng bởi {@link JwtAuthFilter}.
+ * Tăng version là thu hồi mọi token đã cấp cho user; việc invalidate được broadcast qua Redis pub/sub,
+ * TTL ngắn giới hạn độ trễ nếu mất message.
+ */
+@Component
+@Slf4j
+public class TokenVersionCache {
+
+    public static final String INVALIDATION_CHANNEL = "token-version:invalidate";
+
+    /** Message invalidate toàn bộ cache (username luôn dài tối thiểu 6 ký tự nên không trùng) */
+    public static final String ALL = "*";
+
+    private final UserRepository userRepository;
+    private final RedisService redisService;
+    private final BoundedExpiringCache<String, Long> cache;
+    private final long ttlMillis;
+
+    public TokenVersionCache(UserRepository userRepository,
+                             RedisService redisService,
+                             @Value("${token-version.cache-max-size:10000}") int maxSize,
+                             @Value("${token-version.cache-ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.redisService = redisService;
+        this.cache = new BoundedExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Token version hiện tại của user, load từ DB nếu chưa có trong cache
+     *
+     * @param username username
+     * @return token version
+     */
+    public long current(String username) {
+        Long cached = cache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        Long version = userRepository.findTokenVersionByUsername(username)
+                .orElseThrow(() -> new TokenException("User not found"));
+        cache.put(username, version, System.currentTimeMillis() + ttlMillis);
+        return version;
+    }
+
+    /**
+     * Invalidate version của một user trên mọi node (sau commit nếu đang trong transaction)
+     *
+     * @param username username
+     */
+    public void invalidate(String username) {
+        afterCommit(() -> invalidateAndPublish(username));
+    }
+
+    /**
+     * Invalidate toàn bộ cache trên mọi node (sau khi tăng version hàng loạt theo role)
+     */
+    public void invalidateAll() {
+        afterCommit(() -> invalidateAndPublish(ALL));
+    }
+
+    /**
+     * Chỉ xóa entry ở node hiện tại (được gọi từ listener pub/sub)
+     *
+     * @param username username cần xóa, hoặc {@link #ALL}
+     */
+    public void invalidateLocal(String username) {
+        log.debug("Invalidate token version cache for: {}", username);
+        if (ALL.equals(username)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(username);
+        }
+    }
+
+    private void invalidateAndPublish(String username) {
+        invalidateLocal(username);
+        try {
+            redisService.publish(INVALIDATION_CHANNEL, username);
+        } catch (Exception e) {
+            log.warn("Failed to publish token version invalidation for: {}", username, e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
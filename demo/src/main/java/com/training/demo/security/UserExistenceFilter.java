@@ -0,0 +1,275 @@
+package com.training.demo.security;
+
+import com.training.demo.dto.response.User.UserIdentityResponse;
+import com.training.demo.helpers.BloomFilter;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.repository.UserRepository;
+import com.training.demo.service.RedisService;
+import com.training.demo.utils.RedisKeySchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter của username và email đã đăng ký, dùng để bỏ qua truy vấn DB khi chắc chắn user không tồn tại.
+ * Kiểm tra trùng khi đăng ký cũng trả lời từ filter, chỉ hỏi DB khi filter báo có thể tồn tại;
+ * unique constraint của DB vẫn chặn lần ghi cuối cùng.
+ * Filter được dựng từ DB lúc khởi động và định kỳ (chia sẻ giữa các node qua snapshot trong Redis).
+ * User mới được ghi vào một sorted set trong Redis (score = thời điểm thêm) và báo cho các node qua pub/sub.
+ * Mỗi node định kỳ đối chiếu với sorted set, nên mất message pub/sub chỉ làm user mới bị báo nhầm là không tồn tại
+ * tới lần đối chiếu kế tiếp, và tra filter không tốn round trip Redis nào.
+ * Bloom filter không hỗ trợ xóa phần tử nên user bị xóa chỉ biến mất ở lần dựng lại định kỳ
+ * (trong lúc đó chỉ gây false positive, tức là vẫn hỏi DB như trước).
+ */
+@Component
+@Slf4j
+public class UserExistenceFilter {
+
+    public static final String ADDITION_CHANNEL = "user_filter:add";
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    // user thêm trong khoảng này trước thời điểm dựng snapshot được thêm lại vào filter mới (bù độ trễ pub/sub, commit)
+    private static final long REPLAY_MARGIN_MS = 60_000;
+
+    private final UserRepository userRepository;
+    private final RedisService redisService;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final long rebuildIntervalMs;
+    private final int batchSize;
+    private final LongAdder definiteMisses;
+
+    // entry mới thêm -> thời điểm thêm, để không bị mất khi cài một filter dựng trước đó
+    private final Map<String, Long> recentAdditions = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+    private volatile long bloomFilterCreatedAt = Long.MIN_VALUE;
+    // score lớn nhất đã đối chiếu từ sorted set các user mới
+    private volatile double reconciledAt = Double.NEGATIVE_INFINITY;
+
+    public UserExistenceFilter(UserRepository userRepository,
+                               RedisService redisService,
+                               MetricsRegistry metricsRegistry,
+                               @Value("${user-filter.expected-insertions:200000}") long expectedInsertions,
+                               @Value("${user-filter.fpp:0.01}") double fpp,
+                               @Value("${user-filter.rebuild-interval-ms:3600000}") long rebuildIntervalMs,
+                               @Value("${user-filter.batch-size:1000}") int batchSize) {
+        this.userRepository = userRepository;
+        this.redisService = redisService;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.definiteMisses = metricsRegistry.counter("user-filter.definite-misses");
+        metricsRegistry.gauge("user-filter.ready", () -> bloomFilter == null ? 0 : 1);
+    }
+
+    /**
+     * Username có thể đã tồn tại hay chắc chắn chưa. Trả về true khi filter chưa sẵn sàng.
+     *
+     * @param username username cần kiểm tra
+     * @return false nếu chắc chắn chưa có user nào dùng username này
+     */
+    public boolean mightContainUsername(String username) {
+        return mightContain(USERNAME_PREFIX + normalize(username));
+    }
+
+    /**
+     * Email có thể đã tồn tại hay chắc chắn chưa. Trả về true khi filter chưa sẵn sàng.
+     *
+     * @param email email cần kiểm tra
+     * @return false nếu chắc chắn chưa có user nào dùng email này
+     */
+    public boolean mightContainEmail(String email) {
+        return mightContain(EMAIL_PREFIX + normalize(email));
+    }
+
+    /**
+     * Thêm user mới vào filter của mọi node. Gọi trước khi lưu user: nếu transaction rollback filter chỉ có thêm
+     * một false positive, còn gọi sau commit thì có một khoảng ngắn filter báo nhầm là user chưa tồn tại.
+     *
+     * @param username username
+     * @param email    email
+     */
+    public void add(String username, String email) {
+        long now = System.currentTimeMillis();
+        for (String entry : List.of(USERNAME_PREFIX + normalize(username), EMAIL_PREFIX + normalize(email))) {
+            addLocal(entry);
+            try {
+                redisService.addToSortedSet(RedisKeySchema.USER_FILTER_ADDITIONS_KEY, entry, now);
+                redisService.publish(ADDITION_CHANNEL, entry);
+            } catch (Exception e) {
+                log.warn("Failed to record user filter addition: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thêm một entry vào filter ở node hiện tại (được gọi từ listener pub/sub)
+     *
+     * @param entry entry đã chuẩn hóa
+     */
+    public void addLocal(String entry) {
+        recentAdditions.put(entry, System.currentTimeMillis());
+        BloomFilter current = bloomFilter;
+        if (current != null) {
+            current.put(entry);
+        }
+    }
+
+    /**
+     * Dựng filter từ DB khi khởi động, không tin snapshot cũ: dữ liệu có thể đã được seed/restore thẳng vào DB
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuildFromDatabase();
+        } catch (Exception e) {
+            log.warn("Failed to build user filter, falling back to database lookups: {}", e.getMessage());
+        }
+        reconcileFrom(Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Làm mới filter định kỳ: node giữ được lock dựng lại từ DB và ghi snapshot, các node khác nạp snapshot đó
+     */
+    @Scheduled(initialDelayString = "${user-filter.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${user-filter.rebuild-interval-ms:3600000}")
+    public void refresh() {
+        try {
+            if (redisService.setIfAbsent(RedisKeySchema.USER_FILTER_REBUILD_LOCK_KEY, "1",
+                    Math.max(1, rebuildIntervalMs / 2), TimeUnit.MILLISECONDS)) {
+                rebuildFromDatabase();
+            } else if (!loadSnapshot() && bloomFilter == null) {
+                rebuildFromDatabase();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh user filter: {}", e.getMessage());
+        }
+        reconcileFrom(Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Đối chiếu định kỳ với sorted set các user mới, bù message pub/sub bị mất.
+     * Đọc lại cả khoảng bù trước lần đối chiếu trước vì node khác có thể ghi score lệch đồng hồ hoặc commit chậm.
+     */
+    @Scheduled(initialDelayString = "${user-filter.reconcile-interval-ms:30000}",
+            fixedDelayString = "${user-filter.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        reconcileFrom(reconciledAt - REPLAY_MARGIN_MS);
+    }
+
+    //========= PRIVATE METHOD =========//
+
+    private boolean mightContain(String entry) {
+        BloomFilter current = bloomFilter;
+        if (current == null || current.mightContain(entry)) {
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * Thêm vào filter local các entry trong sorted set có score từ minScore
+     */
+    private void reconcileFrom(double minScore) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            redisService.rangeSortedSetByScore(RedisKeySchema.USER_FILTER_ADDITIONS_KEY, minScore, Double.POSITIVE_INFINITY)
+                    .forEach(member -> {
+                        if (member instanceof String entry) {
+                            addLocal(entry);
+                        }
+                    });
+            reconciledAt = startedAt;
+        } catch (Exception e) {
+            log.warn("Failed to reconcile user filter additions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Dựng filter từ DB theo từng trang id rồi ghi snapshot lên Redis
+     */
+    private void rebuildFromDatabase() {
+        long createdAt = System.currentTimeMillis();
+        // mỗi user 2 entry, chừa gấp đôi cho user đăng ký tới lần dựng lại sau
+        BloomFilter fresh = new BloomFilter(Math.max(expectedInsertions, userRepository.count() * 4), fpp);
+
+        long lastId = 0;
+        List<UserIdentityResponse> page;
+        do {
+            page = userRepository.findIdentitiesAfter(lastId, PageRequest.of(0, batchSize));
+            for (UserIdentityResponse identity : page) {
+                fresh.put(USERNAME_PREFIX + normalize(identity.getUsername()));
+                fresh.put(EMAIL_PREFIX + normalize(identity.getEmail()));
+                lastId = identity.getId();
+            }
+        } while (page.size() == batchSize);
+
+        install(fresh, createdAt);
+        redisService.set(RedisKeySchema.USER_FILTER_SNAPSHOT_KEY,
+                createdAt + ":" + Base64.getEncoder().encodeToString(fresh.toBytes()),
+                rebuildIntervalMs * 2, TimeUnit.MILLISECONDS);
+        // user thêm trước snapshot (trừ khoảng bù) đã nằm trong filter vừa dựng
+        redisService.removeSortedSetRangeByScore(RedisKeySchema.USER_FILTER_ADDITIONS_KEY,
+                Double.NEGATIVE_INFINITY, createdAt - REPLAY_MARGIN_MS);
+        log.info("Rebuilt user filter from database");
+    }
+
+    /**
+     * Nạp snapshot từ Redis nếu mới hơn filter hiện tại
+     *
+     * @return false nếu không có snapshot hợp lệ
+     */
+    private boolean loadSnapshot() {
+        Optional<String> snapshot = redisService.get(RedisKeySchema.USER_FILTER_SNAPSHOT_KEY, String.class);
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        try {
+            String value = snapshot.get();
+            int separator = value.indexOf(':');
+            long createdAt = Long.parseLong(value.substring(0, separator));
+            if (createdAt > bloomFilterCreatedAt) {
+                install(BloomFilter.fromBytes(Base64.getDecoder().decode(value.substring(separator + 1))), createdAt);
+                log.debug("Loaded user filter snapshot");
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Drop malformed user filter snapshot: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void install(BloomFilter fresh, long createdAt) {
+        if (createdAt <= bloomFilterCreatedAt) {
+            return;
+        }
+        long replayFrom = createdAt - REPLAY_MARGIN_MS;
+        recentAdditions.entrySet().removeIf(entry -> entry.getValue() < replayFrom);
+        recentAdditions.keySet().forEach(fresh::put);
+        bloomFilter = fresh;
+        bloomFilterCreatedAt = createdAt;
+        // entry đến trong lúc cài filter mới vẫn nằm trong recentAdditions, thêm lại lần nữa để không bị lỡ
+        recentAdditions.keySet().forEach(fresh::put);
+    }
+
+    private static String normalize(String value) {
+        // MySQL so sánh username/email không phân biệt hoa thường
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -29,6 +29,13 @@ public interface AuthService {
      */
     void active(EmailOtpRequest request);
 
+    /**
+     * Kiểm tra username còn trống cho form đăng kí
+     * @param username username cần kiểm tra
+     * @return true nếu username chưa được sử dụng
+     */
+    boolean isUsernameAvailable(String username);
+
     /**
      * Sử dụng để get một access và một refresh token mới
      * @param refreshToken refreshToken
@@ -43,4 +50,11 @@ public interface AuthService {
      */
     void logout(LogoutRequest request);
 
+    /**
+     * Đăng xuất khỏi mọi thiết bị
+     *
+     * @param request Access|Refresh
+     */
+    void logoutAll(LogoutRequest request);
+
 }
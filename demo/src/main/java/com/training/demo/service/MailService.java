@@ -97,4 +97,32 @@ public interface MailService {
      * @param content Plain text content
      */
     void sendSimpleEmailAsync(String[] to, String subject, String content);
+
+    /**
+     * Reserve a place in the async queue before doing work that must not be wasted on a rejected message.
+     * <p>Lets callers consume rate-limited resources (e.g. an OTP send quota) only once the message is sure to be queued.</p>
+     *
+     * @return a reservation to send the message through; closing it without sending gives the place back
+     * @throws org.springframework.mail.MailSendException if the queue is full or the service is shutting down
+     */
+    QueueSlot reserveSlot();
+
+    /**
+     * A reserved place in the async queue.
+     */
+    interface QueueSlot extends AutoCloseable {
+
+        /**
+         * Queue the message in the reserved place. Never fails because the queue is full.
+         *
+         * @param emailDTO DTO including from, to, subject, body, attachments, etc.
+         */
+        void send(EmailDTO emailDTO);
+
+        /**
+         * Release the place if no message was sent through it.
+         */
+        @Override
+        void close();
+    }
 }
@@ -0,0 +1,181 @@
+package com.training.demo.service;
+
+import com.training.demo.utils.helper.RedisEntry;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phiên bản non-blocking của {@link RedisService}: cùng API nhưng trả về Mono/Flux,
+ * không giữ thread trong lúc chờ Redis nên có thể ghép nhiều lệnh chạy song song.
+ */
+public interface ReactiveRedisService {
+
+    /**
+     * Lưu key-value với TTL vào Redis
+     *
+     * @param key      Redis key
+     * @param value    Redis value
+     * @param ttl      Thời gian sống (timeout)
+     * @param timeUnit Đơn vị thời gian (SECONDS, MINUTES, HOURS...)
+     */
+    Mono<Void> set(String key, Object value, long ttl, TimeUnit timeUnit);
+
+    /**
+     * Lưu key-value với TTL nếu key chưa tồn tại (SET NX)
+     *
+     * @param key      Redis key
+     * @param value    Redis value
+     * @param ttl      Thời gian sống (timeout)
+     * @param timeUnit Đơn vị thời gian
+     * @return true nếu đã ghi, false nếu key đã tồn tại
+     */
+    Mono<Boolean> setIfAbsent(String key, Object value, long ttl, TimeUnit timeUnit);
+
+    /**
+     * Lấy giá trị từ Redis theo key
+     *
+     * @param key Redis key
+     * @return Mono giá trị, empty nếu không tồn tại
+     */
+    Mono<Object> get(String key);
+
+    /**
+     * Lấy và convert về kiểu mong muốn
+     *
+     * @param key   Redis key
+     * @param clazz Kiểu dữ liệu mong muốn
+     * @param <T>   Generic type
+     * @return Mono giá trị, empty nếu không có dữ liệu hoặc khác kiểu
+     */
+    <T> Mono<T> get(String key, Class<T> clazz);
+
+    /**
+     * Kiểm tra key có tồn tại trong Redis hay không
+     *
+     * @param key Redis key
+     * @return true nếu tồn tại, false nếu không
+     */
+    Mono<Boolean> exists(String key);
+
+    /**
+     * Xóa key trong Redis
+     *
+     * @param key Redis key
+     * @return true nếu xóa thành công, false nếu key không tồn tại
+     */
+    Mono<Boolean> delete(String key);
+
+    /**
+     * Lấy giá trị của nhiều key trong một lệnh MGET
+     *
+     * @param keys danh sách Redis key
+     * @return danh sách giá trị theo đúng thứ tự key, Optional.empty() nếu key không tồn tại
+     */
+    Mono<List<Optional<Object>>> multiGet(List<String> keys);
+
+    /**
+     * Ghi nhiều key, mỗi key một TTL riêng, trên cùng một connection (Lettuce tự pipeline)
+     *
+     * @param entries danh sách key-value-TTL
+     */
+    Mono<Void> multiSet(Collection<RedisEntry> entries);
+
+    /**
+     * Xóa nhiều key trong một lệnh DEL
+     *
+     * @param keys danh sách Redis key
+     * @return số key đã xóa
+     */
+    Mono<Long> multiDelete(Collection<String> keys);
+
+    /**
+     * Publish message lên một channel Redis pub/sub
+     *
+     * @param channel tên channel
+     * @param message nội dung message
+     */
+    Mono<Void> publish(String channel, Object message);
+
+    /**
+     * Thêm member vào sorted set với score
+     *
+     * @param key    Redis key
+     * @param member member
+     * @param score  score
+     */
+    Mono<Void> addToSortedSet(String key, Object member, double score);
+
+    /**
+     * Lấy score của member trong sorted set
+     *
+     * @param key    Redis key
+     * @param member member
+     * @return Mono score, empty nếu member không tồn tại
+     */
+    Mono<Double> getSortedSetScore(String key, Object member);
+
+    /**
+     * Lấy các member có score trong khoảng [min, max]
+     *
+     * @param key Redis key
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return các member
+     */
+    Flux<Object> rangeSortedSetByScore(String key, double min, double max);
+
+    /**
+     * Xóa các member có score trong khoảng [min, max]
+     *
+     * @param key Redis key
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return số member đã xóa
+     */
+    Mono<Long> removeSortedSetRangeByScore(String key, double min, double max);
+
+    /**
+     * Thực thi Lua script phía Redis (nguyên tử, một round trip)
+     *
+     * @param script script cần chạy
+     * @param keys   danh sách KEYS
+     * @param args   danh sách ARGV (serialize bằng value serializer)
+     * @param <T>    kiểu kết quả
+     * @return kết quả script
+     */
+    <T> Flux<T> execute(RedisScript<T> script, List<String> keys, Object... args);
+
+    /**
+     * Lấy một field của hash và convert về kiểu mong muốn (HGET)
+     *
+     * @param key   Redis key
+     * @param field hash field
+     * @param clazz Kiểu dữ liệu mong muốn
+     * @param <T>   Generic type
+     * @return Mono giá trị, empty nếu field không tồn tại
+     */
+    <T> Mono<T> getHashField(String key, String field, Class<T> clazz);
+
+    /**
+     * Lấy toàn bộ field của hash (HGETALL)
+     *
+     * @param key Redis key
+     * @return map field -> value, rỗng nếu key không tồn tại
+     */
+    Mono<Map<String, Object>> getHash(String key);
+
+    /**
+     * Xóa các field của hash (HDEL)
+     *
+     * @param key    Redis key
+     * @param fields các field cần xóa
+     * @return số field đã xóa
+     */
+    Mono<Long> deleteHashFields(String key, String... fields);
+}
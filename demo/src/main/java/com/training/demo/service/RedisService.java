@@ -1,6 +1,13 @@
 package com.training.demo.service;
 
+import com.training.demo.utils.helper.RedisEntry;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public interface RedisService {
@@ -15,6 +22,17 @@ public interface RedisService {
      */
     void set(String key, Object value, long ttl, TimeUnit timeUnit);
 
+    /**
+     * Lưu key-value với TTL nếu key chưa tồn tại (SET NX)
+     *
+     * @param key      Redis key
+     * @param value    Redis value
+     * @param ttl      Thời gian sống (timeout)
+     * @param timeUnit Đơn vị thời gian
+     * @return true nếu đã ghi, false nếu key đã tồn tại
+     */
+    boolean setIfAbsent(String key, Object value, long ttl, TimeUnit timeUnit);
+
     /**
      * Lấy giá trị từ Redis theo key
      *
@@ -48,4 +66,140 @@ public interface RedisService {
      * @return true nếu xóa thành công, false nếu key không tồn tại
      */
     boolean delete(String key);
+
+    /**
+     * Lấy giá trị của nhiều key trong một lệnh MGET
+     *
+     * @param keys danh sách Redis key
+     * @return danh sách giá trị theo đúng thứ tự key, phần tử null nếu key không tồn tại
+     */
+    List<Object> multiGet(List<String> keys);
+
+    /**
+     * Ghi nhiều key, mỗi key một TTL riêng, trong một pipeline
+     *
+     * @param entries danh sách key-value-TTL
+     */
+    void multiSet(Collection<RedisEntry> entries);
+
+    /**
+     * Xóa nhiều key trong một lệnh DEL
+     *
+     * @param keys danh sách Redis key
+     * @return số key đã xóa
+     */
+    long multiDelete(Collection<String> keys);
+
+    /**
+     * Publish message lên một channel Redis pub/sub
+     *
+     * @param channel tên channel
+     * @param message nội dung message
+     */
+    void publish(String channel, Object message);
+
+    /**
+     * Thêm member vào sorted set với score
+     *
+     * @param key    Redis key
+     * @param member member
+     * @param score  score
+     */
+    void addToSortedSet(String key, Object member, double score);
+
+    /**
+     * Lấy score của member trong sorted set
+     *
+     * @param key    Redis key
+     * @param member member
+     * @return Optional score, empty nếu member không tồn tại
+     */
+    Optional<Double> getSortedSetScore(String key, Object member);
+
+    /**
+     * Lấy các member có score trong khoảng [min, max]
+     *
+     * @param key Redis key
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return tập member
+     */
+    Set<Object> rangeSortedSetByScore(String key, double min, double max);
+
+    /**
+     * Xóa các member có score trong khoảng [min, max]
+     *
+     * @param key Redis key
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return số member đã xóa
+     */
+    long removeSortedSetRangeByScore(String key, double min, double max);
+
+    /**
+     * Thực thi Lua script phía Redis (nguyên tử, một round trip)
+     *
+     * @param script script cần chạy
+     * @param keys   danh sách KEYS
+     * @param args   danh sách ARGV (serialize bằng value serializer)
+     * @param <T>    kiểu kết quả
+     * @return kết quả script
+     */
+    <T> T execute(RedisScript<T> script, List<String> keys, Object... args);
+
+    /**
+     * Thực thi Lua script với ARGV dạng raw: byte[] được gửi nguyên vẹn, giá trị khác gửi dưới dạng String.valueOf.
+     * Dùng khi script ghi value đã được serialize sẵn (vd: bằng codec của key family) hoặc cần INCR trên số nguyên.
+     *
+     * @param script script cần chạy
+     * @param keys   danh sách KEYS
+     * @param args   danh sách ARGV
+     * @param <T>    kiểu kết quả
+     * @return kết quả script
+     */
+    <T> T executeWithRawArgs(RedisScript<T> script, List<String> keys, Object... args);
+
+    /**
+     * Lấy một field của hash và convert về kiểu mong muốn (HGET)
+     *
+     * @param key   Redis key
+     * @param field hash field
+     * @param clazz Kiểu dữ liệu mong muốn
+     * @param <T>   Generic type
+     * @return Optional<T>, empty nếu field không tồn tại
+     */
+    <T> Optional<T> getHashField(String key, String field, Class<T> clazz);
+
+    /**
+     * Lấy toàn bộ field của hash (HGETALL)
+     *
+     * @param key Redis key
+     * @return map field -> value, rỗng nếu key không tồn tại
+     */
+    Map<String, Object> getHash(String key);
+
+    /**
+     * Xóa các field của hash (HDEL)
+     *
+     * @param key    Redis key
+     * @param fields các field cần xóa
+     * @return số field đã xóa
+     */
+    long deleteHashFields(String key, String... fields);
+
+    /**
+     * Gửi nhiều lệnh trong một pipeline (một round trip)
+     *
+     * @param callback các lệnh cần gửi
+     * @return kết quả của từng lệnh theo thứ tự
+     */
+    List<Object> executePipelined(SessionCallback<?> callback);
+
+    /**
+     * Thực thi các lệnh trong một transaction MULTI/EXEC
+     *
+     * @param callback các lệnh cần thực thi (không gọi multi/exec bên trong)
+     * @return kết quả của từng lệnh theo thứ tự
+     */
+    List<Object> executeInTransaction(SessionCallback<?> callback);
 }
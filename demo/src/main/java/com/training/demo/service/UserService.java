@@ -7,6 +7,7 @@ import com.training.demo.dto.request.User.UpdateUserRequest;
 import com.training.demo.dto.response.System.PageResponse;
 import com.training.demo.dto.response.User.UserDetailsResponse;
 import com.training.demo.dto.response.User.UserResponse;
+import com.training.demo.utils.enums.RoleType;
 import org.springframework.data.domain.Pageable;
 import java.util.Map;
 
@@ -81,4 +82,24 @@ public interface UserService {
      * @return tổng số user
      */
     long countUsers();
+
+    /**
+     * Thu hồi mọi token đã cấp cho user (tăng token version)
+     * @param id userId
+     */
+    void revokeTokens(Long id);
+
+    /**
+     * Thu hồi mọi token của các user có role chỉ định trong một câu UPDATE
+     * @param role role
+     * @return số user bị ảnh hưởng
+     */
+    int revokeTokensByRole(RoleType role);
+
+    /**
+     * Kiểm tra username còn trống để đăng ký hay không
+     * @param username username cần kiểm tra
+     * @return true nếu chưa có user nào dùng username này
+     */
+    boolean isUsernameAvailable(String username);
 }
@@ -12,23 +12,34 @@ import com.training.demo.exception.NotFoundException;
 import com.training.demo.exception.TokenException;
 import com.training.demo.repository.UserRepository;
 import com.training.demo.security.CustomUserDetails;
+import com.training.demo.security.JwtClaims;
 import com.training.demo.security.JwtProvider;
+import com.training.demo.security.PasswordUpgrader;
+import com.training.demo.security.SessionRecord;
+import com.training.demo.security.SessionRegistry;
+import com.training.demo.security.TokenDenylist;
 import com.training.demo.service.AuthService;
 import com.training.demo.service.OtpService;
 import com.training.demo.service.RedisService;
 import com.training.demo.service.UserService;
+import com.training.demo.utils.RedisKeySchema;
 import com.training.demo.utils.enums.OtpType;
 import com.training.demo.utils.enums.UserStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import static com.training.demo.mapper.AuthMapper.toResponse;
 
 @Service
@@ -36,12 +47,24 @@ import static com.training.demo.mapper.AuthMapper.toResponse;
 @Slf4j
 public class AuthServiceImpl implements AuthService {
 
+    // Kết quả của script xoay vòng refreshToken
+    private static final long ROTATED = 1;
+    private static final long RETRIED = 2;
+    private static final long REUSED = -1;
+
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtProvider jwtProvider;
     private final UserService userService;
     private final RedisService redisService;
     private final OtpService otpService;
+    private final TokenDenylist tokenDenylist;
+    private final SessionRegistry sessionRegistry;
+    private final PasswordUpgrader passwordUpgrader;
+    private final RedisScript<List<Object>> rotateRefreshTokenScript;
+
+    @Value("${jwt.refreshGraceSeconds:10}")
+    private long refreshGraceSeconds;
 
     /**
      * Sử dụng cơ chế Spring Security để tiến hành Authenticate User
@@ -68,6 +91,8 @@ public class AuthServiceImpl implements AuthService {
                 throw new BadRequestException("Account is not activated or has been locked");
             }
 
+            passwordUpgrader.upgradeIfNeeded(user, request.getPassword());
+
             return generateAndStoreTokens(user);
         } catch (AuthenticationException e) {
             throw new BadRequestException("Username or password incorrect");
@@ -107,6 +132,17 @@ public class AuthServiceImpl implements AuthService {
         otpService.verifyEmail(request);
     }
 
+    /**
+     * Kiểm tra username còn trống cho form đăng kí
+     *
+     * @param username username cần kiểm tra
+     * @return true nếu username chưa được sử dụng
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return userService.isUsernameAvailable(username);
+    }
+
     /**
      * Sử dụng để get một access và một refresh token mới
      *
@@ -117,29 +153,57 @@ public class AuthServiceImpl implements AuthService {
     public AuthResponse refreshToken(String refreshToken) {
         log.info("[AuthService] Refresh token");
 
-        if (!jwtProvider.validateToken(refreshToken, false)) {
-            throw new TokenException("Invalid refresh token");
-        }
+        JwtClaims refreshClaims = jwtProvider.verifyAndExtract(refreshToken, false);
+        String username = refreshClaims.getSubject();
 
-        String username = jwtProvider.getUsernameFromToken(refreshToken, false);
-        String refreshKey = "refresh:" + username;
-        Optional<String> storedTokenOpt = redisService.get(refreshKey, String.class);
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
-        if (storedTokenOpt.isEmpty() || !storedTokenOpt.get().equals(refreshToken)) {
+        String sessionId = refreshClaims.getSessionId();
+        Long tokenVersion = refreshClaims.getTokenVersion();
+        if (sessionId == null || tokenVersion == null || tokenVersion != user.getTokenVersion()) {
             throw new TokenException("Invalid or expired refresh token");
         }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+        String accessJti = JwtProvider.newTokenId();
+        String refreshJti = JwtProvider.newTokenId();
+        String accessToken = jwtProvider.generateAccessToken(user, sessionId, accessJti);
+        String newRefreshToken = jwtProvider.generateRefreshToken(user, sessionId, refreshJti);
+        Date refreshExpiry = jwtProvider.getRefreshTokenExpiryDate();
 
-        redisService.delete(refreshKey);
+        // compare + swap + TTL trên field của phiên trong một script Redis, tránh 2 request refresh đồng thời cùng qua được bước so sánh.
+        // Redis chỉ giữ jti, riêng field grace của phiên giữ cặp token vừa cấp trong vài giây để trả lại cho client retry
+        List<Object> result = redisService.execute(rotateRefreshTokenScript,
+                List.of(RedisKeySchema.sessionKey(username)),
+                sessionId, refreshClaims.getJti(), accessJti, refreshJti,
+                jwtProvider.getAccessTokenExpiryDate().getTime(),
+                refreshExpiry.getTime(),
+                ttlSeconds(refreshExpiry),
+                refreshGraceSeconds,
+                accessToken, newRefreshToken,
+                System.currentTimeMillis());
 
-        return generateAndStoreTokens(user);
+        long status = result == null || result.isEmpty() ? 0 : ((Number) result.get(0)).longValue();
+        if (status == ROTATED) {
+            return toResponse(accessToken, newRefreshToken);
+        }
+        if (status == RETRIED) {
+            // client retry với refreshToken vừa được xoay vòng: trả lại đúng cặp token đã cấp
+            return toResponse((String) result.get(1), (String) result.get(2));
+        }
+        if (status == REUSED) {
+            if (jwtProvider.isStatelessAccess() && result.size() == 3) {
+                tokenDenylist.revoke((String) result.get(1), Instant.ofEpochMilli(((Number) result.get(2)).longValue()));
+            }
+            log.warn("[AuthService] Refresh token reuse detected for username: {}, session {} revoked", username, sessionId);
+            throw new TokenException("Refresh token reuse detected, please login again");
+        }
+        throw new TokenException("Invalid or expired refresh token");
     }
 
 
     /**
-     * Đăng xuất khỏi hệ thổng | Remove
+     * Đăng xuất khỏi hệ thổng | Remove phiên (thiết bị) hiện tại
      *
      * @param request Access|Refresh
      */
@@ -147,31 +211,65 @@ public class AuthServiceImpl implements AuthService {
     public void logout(LogoutRequest request) {
         log.info("[AuthService] Logout account");
 
-        String username = jwtProvider.getUsernameFromToken(request.getAccessToken(), true);
-        redisService.delete("access:" + username);
-        redisService.delete("refresh:" + username);
+        JwtClaims claims = jwtProvider.verifyAndExtract(request.getAccessToken(), true);
+
+        if (jwtProvider.isStatelessAccess()) {
+            // accessToken không được tra Redis mỗi request, đưa jti vào denylist tới khi token hết hạn
+            tokenDenylist.revoke(claims.getJti(), claims.getExpiration());
+        }
+        sessionRegistry.remove(claims.getSubject(), claims.getSessionId());
+    }
+
+    /**
+     * Đăng xuất khỏi mọi thiết bị
+     *
+     * @param request Access|Refresh
+     */
+    @Override
+    public void logoutAll(LogoutRequest request) {
+        log.info("[AuthService] Logout all sessions");
+
+        JwtClaims claims = jwtProvider.verifyAndExtract(request.getAccessToken(), true);
+        String username = claims.getSubject();
+
+        if (jwtProvider.isStatelessAccess()) {
+            tokenDenylist.revokeAll(toExpirations(sessionRegistry.list(username)));
+        }
+        sessionRegistry.removeAll(username);
     }
 
     //========= PRIVATE METHOD =========//
 
     /**
-     * Sinh access và refresh token. Lưu vào redis
+     * Sinh access và refresh token cho một phiên mới. Chỉ lưu jti của token vào session hash của user
      * @param user User đã authen
      * @return Trả về access và refresh token
      */
     private AuthResponse generateAndStoreTokens(User user) {
-        String accessToken = jwtProvider.generateAccessToken(user);
-        String refreshToken = jwtProvider.generateRefreshToken(user.getUsername());
+        String sessionId = JwtProvider.newTokenId();
+        String accessJti = JwtProvider.newTokenId();
+        String refreshJti = JwtProvider.newTokenId();
+        String accessToken = jwtProvider.generateAccessToken(user, sessionId, accessJti);
+        String refreshToken = jwtProvider.generateRefreshToken(user, sessionId, refreshJti);
 
-        String accessKey = "access:" + user.getUsername();
-        String refreshKey = "refresh:" + user.getUsername();
+        Date refreshExpiry = jwtProvider.getRefreshTokenExpiryDate();
+        SessionRecord session = new SessionRecord(accessJti, refreshJti,
+                jwtProvider.getAccessTokenExpiryDate().getTime(), refreshExpiry.getTime(), System.currentTimeMillis());
 
-        long accessTtl = (jwtProvider.getAccessTokenExpiryDate().getTime() - System.currentTimeMillis()) / 1000;
-        long refreshTtl = (jwtProvider.getRefreshTokenExpiryDate().getTime() - System.currentTimeMillis()) / 1000;
-
-        redisService.set(accessKey, accessToken, accessTtl, TimeUnit.SECONDS);
-        redisService.set(refreshKey, refreshToken, refreshTtl, TimeUnit.SECONDS);
+        List<SessionRecord> evicted = sessionRegistry.register(user.getUsername(), sessionId, session, ttlSeconds(refreshExpiry));
+        if (jwtProvider.isStatelessAccess()) {
+            tokenDenylist.revokeAll(toExpirations(evicted));
+        }
 
         return toResponse(accessToken, refreshToken);
     }
+
+    private Map<String, Instant> toExpirations(List<SessionRecord> sessions) {
+        return sessions.stream()
+                .collect(Collectors.toMap(SessionRecord::accessJti, SessionRecord::accessExpiration));
+    }
+
+    private long ttlSeconds(Date expiryDate) {
+        return (expiryDate.getTime() - System.currentTimeMillis()) / 1000;
+    }
 }
@@ -1,18 +1,147 @@
 package com.training.demo.service.impl;
 
+import com.training.demo.config.MailPipelineProperties;
+import com.training.demo.dto.response.Email.AttachmentDTO;
 import com.training.demo.dto.response.Email.EmailDTO;
+import com.training.demo.helpers.metrics.MetricsRegistry;
 import com.training.demo.service.MailService;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-
+import org.springframework.util.CollectionUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import static com.training.demo.utils.constants.MailConstants.ENCODING;
+import static com.training.demo.utils.constants.MailConstants.SUFFIX;
 
+/**
+ * Gửi mail qua SMTP. Các hàm async chỉ đưa mail vào hàng đợi, các worker chạy trên mailTaskExecutor
+ * lấy mail theo lô và gửi liên tiếp trên một Transport SMTP được giữ mở, nên không phải bắt tay TCP/TLS/AUTH
+ * cho từng mail. Mail gửi lỗi được retry với backoff tăng dần trên từng mail.
+ * Khi tắt ứng dụng, service ngừng nhận mail mới và gửi nốt mail đang chờ trong giới hạn shutdown-timeout-ms,
+ * mail còn lại được log lỗi từng cái và đếm vào metric mail.undelivered.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class MailServiceImpl implements MailService {
 
+    // thời gian worker chờ mail mới trước khi kiểm tra retry đến hạn / đóng kết nối rảnh
+    private static final long IDLE_POLL_MS = 200;
+    // chu kỳ kiểm tra mail còn chờ gửi khi đang tắt
+    private static final long DRAIN_POLL_MS = 50;
+
+    private final JavaMailSenderImpl mailSender;
+    private final TemplateEngine templateEngine;
+    private final Executor mailTaskExecutor;
+    private final MailPipelineProperties properties;
+
+    // sức chứa của queue giữ bằng semaphore để caller giữ chỗ trước khi dựng mail (xem reserveSlot),
+    // permit được trả khi worker lấy mail ra khỏi queue
+    private final Semaphore queueSlots;
+    private final BlockingQueue<PendingMail> queue = new LinkedBlockingQueue<>();
+    private final DelayQueue<PendingMail> retryQueue = new DelayQueue<>();
+    // số mail đã nhận mà chưa gửi xong / bỏ hẳn (kể cả mail worker đang gửi)
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private volatile CountDownLatch workersStopped = new CountDownLatch(0);
+
+    private final LongAdder sent;
+    private final LongAdder retried;
+    private final LongAdder failed;
+    private final LongAdder undelivered;
+    private final LongAdder connections;
+
+    public MailServiceImpl(JavaMailSenderImpl mailSender,
+                           @Qualifier("mailTemplateEngine") TemplateEngine templateEngine,
+                           @Qualifier("mailTaskExecutor") Executor mailTaskExecutor,
+                           MailPipelineProperties properties,
+                           MetricsRegistry metricsRegistry) {
+        this.mailSender = mailSender;
+        this.templateEngine = templateEngine;
+        this.mailTaskExecutor = mailTaskExecutor;
+        this.properties = properties;
+        this.queueSlots = new Semaphore(Math.max(1, properties.getQueueCapacity()));
+        this.sent = metricsRegistry.counter("mail.sent");
+        this.retried = metricsRegistry.counter("mail.retried");
+        this.failed = metricsRegistry.counter("mail.failed");
+        this.undelivered = metricsRegistry.counter("mail.undelivered");
+        this.connections = metricsRegistry.counter("mail.connections");
+        metricsRegistry.gauge("mail.queue.size", () -> queue.size() + retryQueue.size());
+    }
+
+    @PostConstruct
+    public void start() {
+        int workers = Math.max(1, properties.getWorkers());
+        workersStopped = new CountDownLatch(workers);
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            mailTaskExecutor.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Ngừng nhận mail mới, đưa mail đang chờ retry lên gửi ngay rồi chờ worker gửi hết trong shutdown-timeout-ms.
+     * Sau đó dừng worker (đóng Transport của từng worker); mail chưa gửi được log lỗi từng cái.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        expediteRetries();
+
+        long deadline = System.currentTimeMillis() + properties.getShutdownTimeoutMs();
+        try {
+            while (outstanding.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(DRAIN_POLL_MS);
+                // retry được xếp lịch ngay trước khi accepting chuyển false vẫn mang backoff
+                expediteRetries();
+            }
+            running = false;
+            // worker đang gửi dở một mail có thể chưa thoát ngay, chờ thêm tối đa một vòng poll
+            workersStopped.await(Math.max(deadline - System.currentTimeMillis(), IDLE_POLL_MS * 2), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+        }
+
+        PendingMail mail;
+        while ((mail = queue.poll()) != null) {
+            abandon(mail);
+        }
+        takeRetries().forEach(this::abandon);
+        if (outstanding.get() > 0) {
+            log.error("Mail service stopped with {} mail(s) still being sent", outstanding.get());
+        }
+    }
+
     /**
      * Send email based on a DTO containing full information.
      *
@@ -20,7 +149,8 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendEmail(EmailDTO emailDTO) {
-
+        mailSender.send(prepare(emailDTO));
+        sent.increment();
     }
 
     /**
@@ -33,7 +163,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendTemplateEmail(String to, String subject, String templateName, Map<String, Object> variables) {
-
+        sendEmail(templateEmail(List.of(to), subject, templateName, variables));
     }
 
     /**
@@ -46,7 +176,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendSimpleEmail(String to, String subject, String content) {
-
+        sendEmail(simpleEmail(List.of(to), subject, content));
     }
 
     /**
@@ -59,7 +189,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendTemplateEmail(String[] to, String subject, String templateName, Map<String, Object> variables) {
-
+        sendEmail(templateEmail(Arrays.asList(to), subject, templateName, variables));
     }
 
     /**
@@ -71,7 +201,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendSimpleEmail(String[] to, String subject, String content) {
-
+        sendEmail(simpleEmail(Arrays.asList(to), subject, content));
     }
 
     /**
@@ -81,7 +211,25 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendEmailAsync(EmailDTO emailDTO) {
+        try (QueueSlot slot = reserveSlot()) {
+            slot.send(emailDTO);
+        }
+    }
 
+    /**
+     * Reserve a place in the async queue before doing work that must not be wasted on a rejected message.
+     *
+     * @return a reservation to send the message through; closing it without sending gives the place back
+     */
+    @Override
+    public QueueSlot reserveSlot() {
+        if (!accepting) {
+            throw new MailSendException("Mail service is shutting down");
+        }
+        if (!queueSlots.tryAcquire()) {
+            throw new MailSendException("Mail queue is full");
+        }
+        return new ReservedSlot();
     }
 
     /**
@@ -94,7 +242,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendTemplateEmailAsync(String to, String subject, String templateName, Map<String, Object> variables) {
-
+        sendEmailAsync(templateEmail(List.of(to), subject, templateName, variables));
     }
 
     /**
@@ -107,7 +255,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendTemplateEmailAsync(String[] to, String subject, String templateName, Map<String, Object> variables) {
-
+        sendEmailAsync(templateEmail(Arrays.asList(to), subject, templateName, variables));
     }
 
     /**
@@ -119,7 +267,7 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendSimpleEmailAsync(String to, String subject, String content) {
-
+        sendEmailAsync(simpleEmail(List.of(to), subject, content));
     }
 
     /**
@@ -131,6 +279,340 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendSimpleEmailAsync(String[] to, String subject, String content) {
+        sendEmailAsync(simpleEmail(Arrays.asList(to), subject, content));
+    }
+
+    //========== PRIVATE METHOD ==========//
+
+    /**
+     * Vòng lặp của một worker: lấy một lô mail (retry đến hạn trước, sau đó mail mới đang chờ sẵn),
+     * gửi cả lô trên kết nối SMTP của worker
+     */
+    private void runWorker() {
+        SmtpConnection connection = new SmtpConnection();
+        List<PendingMail> batch = new ArrayList<>(properties.getBatchSize());
+        try {
+            while (running) {
+                if (!nextBatch(batch)) {
+                    connection.closeIfIdle();
+                    continue;
+                }
+                connection.validate();
+                for (PendingMail mail : batch) {
+                    if (running) {
+                        deliver(connection, mail);
+                    } else {
+                        abandon(mail);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+            workersStopped.countDown();
+        }
+    }
+
+    private boolean nextBatch(List<PendingMail> batch) throws InterruptedException {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        PendingMail due;
+        while (batch.size() < batchSize && (due = retryQueue.poll()) != null) {
+            batch.add(due);
+        }
+        int taken = 0;
+        if (batch.isEmpty()) {
+            PendingMail first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return false;
+            }
+            batch.add(first);
+            taken++;
+        }
+        taken += queue.drainTo(batch, batchSize - batch.size());
+        queueSlots.release(taken);
+        return true;
+    }
+
+    private void deliver(SmtpConnection connection, PendingMail mail) {
+        MimeMessage message;
+        try {
+            message = mail.message();
+        } catch (RuntimeException e) {
+            failed.increment();
+            outstanding.decrementAndGet();
+            log.error("Drop mail that cannot be prepared, subject: {}", mail.email.getSubject(), e);
+            return;
+        }
+
+        try {
+            connection.transport().sendMessage(message, message.getAllRecipients());
+            connection.onSent();
+            sent.increment();
+            outstanding.decrementAndGet();
+        } catch (MessagingException | RuntimeException e) {
+            // không biết kết nối còn dùng được không, lần gửi sau mở kết nối mới
+            connection.close();
+            scheduleRetry(mail, e);
+        }
+    }
+
+    private void scheduleRetry(PendingMail mail, Exception cause) {
+        if (!running) {
+            abandon(mail);
+            return;
+        }
+        if (mail.attempts >= properties.getMaxAttempts()) {
+            failed.increment();
+            outstanding.decrementAndGet();
+            log.error("Give up sending mail to {} after {} attempt(s): {}",
+                    mail.email.getTo(), mail.attempts, cause.getMessage());
+            return;
+        }
+        if (!accepting) {
+            // đang tắt: không chờ backoff, thử lại ngay trong thời gian drain
+            retryNow(mail);
+            retried.increment();
+            log.warn("Send mail failed (attempt {}) during shutdown, retry now: {}", mail.attempts, cause.getMessage());
+            return;
+        }
+        long backoff = Math.min(properties.getMaxBackoffMs(),
+                properties.getInitialBackoffMs() << Math.min(mail.attempts - 1, 20));
+        // jitter để các mail lỗi cùng lúc không retry dồn cùng một thời điểm
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        mail.dueAt = System.currentTimeMillis() + delay;
+        retryQueue.put(mail);
+        retried.increment();
+        log.warn("Send mail failed (attempt {}), retry in {} ms: {}", mail.attempts, delay, cause.getMessage());
+    }
+
+    private void retryNow(PendingMail mail) {
+        mail.dueAt = 0;
+        retryQueue.put(mail);
+    }
+
+    /**
+     * Đưa mail đang chờ backoff lên gửi ngay (dueAt không đổi được khi mail còn nằm trong DelayQueue)
+     */
+    private void expediteRetries() {
+        for (PendingMail mail : retryQueue.toArray(new PendingMail[0])) {
+            if (mail.dueAt > 0 && retryQueue.remove(mail)) {
+                retryNow(mail);
+            }
+        }
+    }
+
+    /**
+     * Lấy mọi mail trong retryQueue, kể cả mail chưa hết backoff (DelayQueue.drainTo chỉ lấy mail đã đến hạn)
+     */
+    private List<PendingMail> takeRetries() {
+        List<PendingMail> waiting = new ArrayList<>();
+        for (PendingMail mail : retryQueue.toArray(new PendingMail[0])) {
+            if (retryQueue.remove(mail)) {
+                waiting.add(mail);
+            }
+        }
+        return waiting;
+    }
+
+    private void abandon(PendingMail mail) {
+        undelivered.increment();
+        outstanding.decrementAndGet();
+        log.error("Mail to {} was not delivered before shutdown, subject: {}", mail.email.getTo(), mail.email.getSubject());
+    }
+
+    /**
+     * Dựng MimeMessage từ EmailDTO (render template nếu có)
+     */
+    private MimeMessage prepare(EmailDTO email) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, !CollectionUtils.isEmpty(email.getAttachments()), ENCODING);
+            helper.setFrom(email.getFrom() != null ? email.getFrom() : mailSender.getUsername());
+            helper.setTo(email.getTo().toArray(String[]::new));
+            if (!CollectionUtils.isEmpty(email.getCc())) {
+                helper.setCc(email.getCc().toArray(String[]::new));
+            }
+            if (!CollectionUtils.isEmpty(email.getBcc())) {
+                helper.setBcc(email.getBcc().toArray(String[]::new));
+            }
+            helper.setSubject(email.getSubject());
+
+            if (email.getTemplateName() != null) {
+                helper.setText(render(email.getTemplateName(), email.getTemplateVariables()), true);
+            } else if (email.isHtml() && email.getHtmlContent() != null) {
+                helper.setText(email.getHtmlContent(), true);
+            } else {
+                helper.setText(email.getTextContent() != null ? email.getTextContent() : "", false);
+            }
+
+            if (email.getAttachments() != null) {
+                for (AttachmentDTO attachment : email.getAttachments()) {
+                    InputStreamSource source = attachment.getContent() != null
+                            ? new ByteArrayResource(attachment.getContent())
+                            : new FileSystemResource(attachment.getFilePath());
+                    if (attachment.isInline()) {
+                        helper.addInline(attachment.getContentId(), source, attachment.getContentType());
+                    } else {
+                        helper.addAttachment(attachment.getFilename(), source, attachment.getContentType());
+                    }
+                }
+            }
+
+            // Transport.sendMessage không tự làm như JavaMailSender.send
+            message.setSentDate(new Date());
+            message.saveChanges();
+            return message;
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Could not prepare mail: " + e.getMessage(), e);
+        }
+    }
+
+    private String render(String templateName, Map<String, Object> variables) {
+        // resolver đã tự thêm hậu tố .html
+        String name = templateName.endsWith(SUFFIX)
+                ? templateName.substring(0, templateName.length() - SUFFIX.length())
+                : templateName;
+        Context context = new Context();
+        if (variables != null) {
+            context.setVariables(variables);
+        }
+        return templateEngine.process(name, context);
+    }
+
+    private EmailDTO templateEmail(List<String> to, String subject, String templateName, Map<String, Object> variables) {
+        return EmailDTO.builder()
+                .to(to)
+                .subject(subject)
+                .templateName(templateName)
+                .templateVariables(variables)
+                .build();
+    }
+
+    private EmailDTO simpleEmail(List<String> to, String subject, String content) {
+        return EmailDTO.builder()
+                .to(to)
+                .subject(subject)
+                .textContent(content)
+                .isHtml(false)
+                .build();
+    }
+
+    /**
+     * Mail trong hàng đợi. MimeMessage được dựng ở lần gửi đầu và dùng lại khi retry.
+     */
+    private final class PendingMail implements Delayed {
+
+        private final EmailDTO email;
+        private MimeMessage message;
+        private int attempts;
+        private long dueAt;
+
+        private PendingMail(EmailDTO email) {
+            this.email = email;
+        }
+
+        private MimeMessage message() {
+            attempts++;
+            if (message == null) {
+                message = prepare(email);
+            }
+            return message;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((PendingMail) other).dueAt);
+        }
+    }
+
+    /**
+     * Chỗ đã giữ trong queue: gửi đúng một mail, hoặc trả chỗ khi close mà chưa gửi
+     */
+    private final class ReservedSlot implements QueueSlot {
+
+        private boolean used;
+
+        @Override
+        public void send(EmailDTO emailDTO) {
+            if (used) {
+                throw new IllegalStateException("Queue slot already used");
+            }
+            used = true;
+            outstanding.incrementAndGet();
+            queue.add(new PendingMail(emailDTO));
+        }
+
+        @Override
+        public void close() {
+            if (!used) {
+                used = true;
+                queueSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Kết nối SMTP của một worker (chỉ worker đó dùng, không cần đồng bộ)
+     */
+    private final class SmtpConnection {
+
+        private Transport transport;
+        private int sentOnConnection;
+        private long lastUsedAt;
+
+        private Transport transport() throws MessagingException {
+            if (transport != null && sentOnConnection >= properties.getMaxMessagesPerConnection()) {
+                close();
+            }
+            if (transport == null) {
+                String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+                Transport fresh = mailSender.getSession().getTransport(protocol);
+                fresh.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+                transport = fresh;
+                sentOnConnection = 0;
+                lastUsedAt = System.currentTimeMillis();
+                connections.increment();
+            }
+            return transport;
+        }
+
+        private void onSent() {
+            sentOnConnection++;
+            lastUsedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Kiểm tra một lần mỗi lô (NOOP) để kết nối bị server đóng khi rảnh không làm mail đầu lô phải chờ retry
+         */
+        private void validate() {
+            if (transport != null && !transport.isConnected()) {
+                close();
+            }
+        }
+
+        private void closeIfIdle() {
+            if (transport != null && System.currentTimeMillis() - lastUsedAt > properties.getIdleCloseMs()) {
+                close();
+            }
+        }
 
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Close SMTP transport failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
     }
 }
@@ -8,34 +8,56 @@ import com.training.demo.dto.request.Otp.SendOtpRequest;
 import com.training.demo.entity.User;
 import com.training.demo.exception.BadRequestException;
 import com.training.demo.exception.NotFoundException;
+import com.training.demo.exception.TooManyRequestsException;
 import com.training.demo.repository.UserRepository;
+import com.training.demo.security.HmacOtpCodec;
+import com.training.demo.security.OtpCodeGenerator;
+import com.training.demo.security.UserExistenceFilter;
 import com.training.demo.service.MailService;
 import com.training.demo.service.OtpService;
 import com.training.demo.service.RedisService;
-import com.training.demo.utils.OtpRedisKeyUtil;
+import com.training.demo.utils.RedisKeySchema;
+import com.training.demo.utils.constants.CacheConstants;
 import com.training.demo.utils.enums.OtpType;
 import com.training.demo.utils.helper.OtpEmailTemplate;
-import com.training.demo.utils.helper.OtpPayload;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mail.MailSendException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.Optional;
-import java.util.Random;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
-import static com.training.demo.utils.OtpRedisKeyUtil.otpCountKey;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OtpServiceImpl implements OtpService {
 
+    // Kết quả của script cấp OTP (giá trị dương là số lần đã gửi)
+    private static final long OTP_COOLDOWN = 0;
+    private static final long OTP_QUOTA_EXCEEDED = -1;
+
+    // Kết quả của script xác thực OTP
+    private static final long OTP_MATCHED = 1;
+    private static final long OTP_NOT_FOUND = -1;
+    private static final long OTP_LOCKED = -2;
+
     private final RedisService redisService;
+    private final RedisScript<Long> issueOtpScript;
+    private final RedisScript<List<Object>> verifyOtpScript;
+    private final HmacOtpCodec hmacOtpCodec;
+    private final OtpCodeGenerator otpCodeGenerator;
+    private final UserExistenceFilter userExistenceFilter;
     private final UserRepository userRepository;
     private final MailService mailService;
     private final OtpProperties otpProperties;
+    private final CacheManager cacheManager;
 
     /**
      * Send a new OTP to the user for the specified operation type.
@@ -48,20 +70,34 @@ public class OtpServiceImpl implements OtpService {
     public void sendOtp(SendOtpRequest request, OtpType type) {
         log.info("Sending otp to email:{} and type: {}", request.getEmail(), type);
 
-        //check user and count
+        //check user
         User user = getUserByEmail(request.getEmail());
-        checkSendAllowed(request.getEmail(), type);
-
-        //create otp
-        String otp = generatedVerifyKey(otpProperties.getOtpLength());
-        OtpPayload payload = new OtpPayload(otp, 0, 0, System.currentTimeMillis());
 
-        //insert to redis
-        storeOtp(request.getEmail(), payload, type);
-        incrementSendCount(request.getEmail(), type);
+        //reserve a mail queue slot before the cooldown and send quota are consumed,
+        //the slot is given back if the script rejects the request
+        MailService.QueueSlot slot;
+        try {
+            slot = mailService.reserveSlot();
+        } catch (MailSendException e) {
+            log.warn("Mail queue is full, otp not sent to email: {}", request.getEmail());
+            throw new TooManyRequestsException("Email service is busy. Please try again later.");
+        }
 
-        //send otp to user
-        sendOtpEmail(user, payload, type);
+        try (slot) {
+            //check cooldown + quota, store otp and increment send count in one atomic script.
+            //HMAC mode stores no code: it is derived from the issue number the script hands out
+            String otp;
+            if (hmacOtpCodec.isEnabled()) {
+                long issue = issueOtp(request.getEmail(), "", type);
+                otp = hmacOtpCodec.code(request.getEmail(), type, hmacOtpCodec.currentWindow(), issue);
+            } else {
+                otp = otpCodeGenerator.generate();
+                issueOtp(request.getEmail(), otp, type);
+            }
+
+            //send otp to user
+            sendOtpEmail(slot, user, otp, type);
+        }
     }
 
     /**
@@ -80,7 +116,7 @@ public class OtpServiceImpl implements OtpService {
      * Verify the provided OTP code and return a temporary verify key.
      *
      * @param request request containing email and OTP code
-     * @return verification key string (UUID)
+     * @return verification key string (UUID, or a signed token in HMAC mode)
      */
     @Transactional
     @Override
@@ -108,6 +144,7 @@ public class OtpServiceImpl implements OtpService {
         User user = getUserByEmail(request.getEmail());
         user.setVerifyEmail(true);
         userRepository.save(user);
+        evictCachedUser(user.getId());
 
         log.debug("Before save: emailVerified={}", user.isVerifyEmail());
 
@@ -125,94 +162,145 @@ public class OtpServiceImpl implements OtpService {
     public User confirmVerifyKey(String verifyKey) {
         log.info("Confirm verify key running");
 
-        String email = (String) redisService.get(OtpRedisKeyUtil.verifyKey(verifyKey));
+        if (HmacOtpCodec.isSignedVerifyKey(verifyKey)) {
+            return getUserByEmail(consumeSignedVerifyKey(verifyKey));
+        }
+
+        String email = (String) redisService.get(RedisKeySchema.otpVerifyKey(verifyKey));
         if (email == null) {
             throw new NotFoundException("Verify key invalid or expired.");
         }
 
         User user = getUserByEmail(email);
-        redisService.delete(OtpRedisKeyUtil.verifyKey(verifyKey));
+        redisService.delete(RedisKeySchema.otpVerifyKey(verifyKey));
 
         log.info("Confirmed verifyKey={} for user={}", verifyKey, user.getId());
         return user;
     }
 
     //========== PRIVATE METHOD =========//
-    private String generatedVerifyKey(int length) {
-        StringBuilder sb = new StringBuilder();
-        Random random = new Random();
-        for(int i = 0; i < length; i++) {
-            sb.append(random.nextInt(10));
+    private void evictCachedUser(Long userId) {
+        Cache users = cacheManager.getCache(CacheConstants.USERS);
+        if (users != null) {
+            users.evict(userId);
         }
-        return sb.toString();
     }
 
     private User getUserByEmail(String email) {
+        if (!userExistenceFilter.mightContainEmail(email)) {
+            throw new NotFoundException("User not found");
+        }
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
-    private int parseCount(Optional<String> countOpt) {
-        return countOpt.map(Integer::parseInt).orElse(0);
-    }
-
-    private void checkSendAllowed(String email, OtpType type) {
-        String otpKey = OtpRedisKeyUtil.otpKey(email, type);
-        if (redisService.exists(otpKey)) {
+    /**
+     * Cấp OTP bằng script: từ chối nếu OTP cũ còn hiệu lực hoặc đã vượt quota, ngược lại lưu OTP vào hash
+     * (code, attempts) hoặc tăng số thứ tự lần cấp (HMAC), và INCR bộ đếm (TTL cửa sổ chỉ đặt ở lần gửi đầu)
+     * trong một round trip nguyên tử
+     *
+     * @param otp mã OTP cần lưu, rỗng ở chế độ HMAC
+     * @return số thứ tự lần cấp ở chế độ HMAC
+     */
+    private long issueOtp(String email, String otp, OtpType type) {
+        Long result = redisService.executeWithRawArgs(issueOtpScript,
+                List.of(RedisKeySchema.otpKey(email, type), RedisKeySchema.otpSendCountKey(email, type)),
+                otp,
+                hmacOtpCodec.isEnabled()
+                        ? hmacOtpCodec.issueTtlSeconds()
+                        : TimeUnit.MINUTES.toSeconds(otpProperties.getExpiryMinutes()),
+                TimeUnit.MINUTES.toSeconds(otpProperties.getResendLimitMinutes()),
+                otpProperties.getMaxSendCount());
+
+        long status = result != null ? result : 0;
+        if (status == OTP_COOLDOWN) {
             throw new NotFoundException("Otp key not found");
         }
-
-        String countKey = otpCountKey(email, type);
-        int count = parseCount(redisService.get(countKey, String.class));
-
-        if (count >= otpProperties.getMaxSendCount()) {
+        if (status == OTP_QUOTA_EXCEEDED) {
             throw new BadRequestException("You have sent OTP too many times. Try again later.");
         }
+        return status;
     }
 
-    private void storeOtp(String email, OtpPayload payload, OtpType type) {
-        String otpKey = OtpRedisKeyUtil.otpKey(email, type);
-        log.info("OtpPayload: {}", payload);
-
-        redisService.set(otpKey, payload, otpProperties.getExpiryMinutes(), TimeUnit.MINUTES);
-    }
-
-    private void incrementSendCount(String email, OtpType type) {
-        String countKey = otpCountKey(email, type);
-        int count = parseCount(redisService.get(countKey, String.class));
-        redisService.set(countKey, String.valueOf(count + 1),
-                otpProperties.getResendLimitMinutes(), TimeUnit.MINUTES);
-    }
-
-    private void sendOtpEmail(User user, OtpPayload payload, OtpType type) {
+    private void sendOtpEmail(MailService.QueueSlot slot, User user, String otp, OtpType type) {
         EmailDTO email = EmailDTO.builder()
                 .to(List.of(user.getEmail()))
                 .subject("Mã OTP xác thực")
-                .textContent(OtpEmailTemplate.buildContent(user, payload.getCode(), type, otpProperties.getExpiryMinutes()))
+                .textContent(OtpEmailTemplate.buildContent(user, otp, type, otpProperties.getExpiryMinutes()))
                 .isHtml(false)
                 .build();
-        mailService.sendEmailAsync(email);
+        slot.send(email);
     }
 
     private void validateOtp(String email, String inputOtp, OtpType type) {
-        String key = "OTP:" + email + ":" + type.name();
-        Optional<OtpPayload> payload = redisService.get(key, OtpPayload.class);
+        if (hmacOtpCodec.isEnabled()) {
+            validateHmacOtp(email, inputOtp, type);
+            return;
+        }
+        checkAttempt(email, type, inputOtp, "", "");
+    }
 
-        if (payload.isEmpty()) {
-            log.error("OTP not found in Redis for key={}", key);
+    /**
+     * So mã và đếm lần sai trong một script: sai thì HINCRBY attempts, đủ N lần sai thì OTP bị hủy/khóa
+     *
+     * @param hmacResult "" ở chế độ STORED (so với mã lưu trong hash), "1"/"0" là kết quả so khớp HMAC ở app
+     * @param issue      số thứ tự lần cấp dùng để so khớp HMAC, "" ở chế độ STORED
+     */
+    private void checkAttempt(String email, OtpType type, String inputOtp, String hmacResult, String issue) {
+        List<Object> result = redisService.executeWithRawArgs(verifyOtpScript,
+                List.of(RedisKeySchema.otpKey(email, type)),
+                inputOtp, otpProperties.getMaxVerifyAttempts(), hmacResult, issue);
+
+        long status = result == null || result.isEmpty() ? OTP_NOT_FOUND : ((Number) result.get(0)).longValue();
+        if (status == OTP_MATCHED) {
+            return;
+        }
+        if (status == OTP_NOT_FOUND) {
             throw new NotFoundException("OTP expired or not found.");
         }
+        if (status == OTP_LOCKED) {
+            log.warn("OTP locked after too many failed attempts for email={}, type={}", email, type);
+            throw new TooManyRequestsException("Too many failed OTP attempts. Please request a new OTP.");
+        }
+        long remaining = ((Number) result.get(1)).longValue();
+        throw new BadRequestException("Invalid OTP", Map.of("remainingAttempts", remaining));
+    }
 
-        log.debug("Validating OTP: input={} stored={}", inputOtp, payload.get().getCode());
+    /**
+     * OTP HMAC: đọc số thứ tự lần cấp mới nhất, khớp mã của lần cấp đó với cửa sổ hiện tại/liền trước,
+     * rồi script đếm lần sai hoặc đánh dấu lần cấp đã dùng (bỏ qua nếu đã có lần cấp mới hơn trong lúc đó)
+     */
+    private void validateHmacOtp(String email, String inputOtp, OtpType type) {
+        long issue = redisService.getHashField(RedisKeySchema.otpKey(email, type), "issue", Number.class)
+                .map(Number::longValue)
+                .orElseThrow(() -> new NotFoundException("OTP expired or not found."));
+        OptionalLong window = hmacOtpCodec.match(email, type, issue, inputOtp);
+        checkAttempt(email, type, "", window.isPresent() ? "1" : "0", String.valueOf(issue));
+    }
 
-        if (!payload.get().getCode().equals(inputOtp)) {
-            throw new BadRequestException("Invalid OTP");
+    /**
+     * Verify key đã ký: kiểm tra chữ ký + hạn dùng, jti được đánh dấu đã dùng bằng SET NX tới khi key hết hạn
+     *
+     * @return email trong verify key
+     */
+    private String consumeSignedVerifyKey(String verifyKey) {
+        HmacOtpCodec.VerifyKeyClaims claims = hmacOtpCodec.parseVerifyKey(verifyKey)
+                .orElseThrow(() -> new NotFoundException("Verify key invalid or expired."));
+        long ttlMillis = claims.expiresAt() - System.currentTimeMillis();
+        boolean firstUse = ttlMillis > 0 && redisService.setIfAbsent(RedisKeySchema.verifyKeyUsedKey(claims.jti()), 1,
+                ttlMillis, TimeUnit.MILLISECONDS);
+        if (!firstUse) {
+            throw new NotFoundException("Verify key invalid or expired.");
         }
+        return claims.email();
     }
 
     private String createVerifyKey(String email) {
+        if (hmacOtpCodec.isEnabled()) {
+            return hmacOtpCodec.issueVerifyKey(email);
+        }
         String verifyKey = UUID.randomUUID().toString();
-        String redisKey = OtpRedisKeyUtil.verifyKey(verifyKey);
+        String redisKey = RedisKeySchema.otpVerifyKey(verifyKey);
         redisService.set(redisKey, email, otpProperties.getVerifyKeyExpiryMinutes(), TimeUnit.MINUTES);
         return verifyKey;
     }
@@ -0,0 +1,210 @@
+package com.training.demo.service.impl;
+
+import com.training.demo.helpers.redis.RedisCommandMetrics;
+import com.training.demo.helpers.redis.RedisValueCodecs;
+import com.training.demo.service.ReactiveRedisService;
+import com.training.demo.utils.helper.RedisEntry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ReactiveRedisServiceImpl implements ReactiveRedisService {
+
+    private static final StringRedisSerializer KEY_SERIALIZER = StringRedisSerializer.UTF_8;
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final RedisValueCodecs valueCodecs;
+    private final RedisCommandMetrics metrics;
+
+    public ReactiveRedisServiceImpl(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, Object> redisTemplate,
+                                    RedisValueCodecs valueCodecs,
+                                    RedisCommandMetrics metrics) {
+        this.redisTemplate = redisTemplate;
+        this.valueCodecs = valueCodecs;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> set(String key, Object value, long ttl, TimeUnit timeUnit) {
+        return writeRaw("set", key, value, Expiration.from(ttl, timeUnit), RedisStringCommands.SetOption.upsert()).then();
+    }
+
+    @Override
+    public Mono<Boolean> setIfAbsent(String key, Object value, long ttl, TimeUnit timeUnit) {
+        return writeRaw("set-nx", key, value, Expiration.from(ttl, timeUnit), RedisStringCommands.SetOption.ifAbsent());
+    }
+
+    @Override
+    public Mono<Object> get(String key) {
+        ByteBuffer rawKey = ByteBuffer.wrap(KEY_SERIALIZER.serialize(key));
+        return measure("get", key, redisTemplate.execute(connection -> connection.stringCommands().get(rawKey)).next())
+                .filter(ByteBuffer::hasRemaining)
+                .map(raw -> {
+                    metrics.valueSize("get", key, raw.remaining());
+                    return valueCodecs.forKey(key).deserialize(ByteUtils.getBytes(raw));
+                });
+    }
+
+    @Override
+    public <T> Mono<T> get(String key, Class<T> clazz) {
+        return get(key).filter(clazz::isInstance).map(clazz::cast);
+    }
+
+    @Override
+    public Mono<Boolean> exists(String key) {
+        return measure("exists", key, redisTemplate.hasKey(key));
+    }
+
+    @Override
+    public Mono<Boolean> delete(String key) {
+        return measure("delete", key, redisTemplate.delete(key).map(removed -> removed > 0));
+    }
+
+    @Override
+    public Mono<List<Optional<Object>>> multiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<ByteBuffer> rawKeys = keys.stream().map(key -> ByteBuffer.wrap(KEY_SERIALIZER.serialize(key))).toList();
+        return measure("multi-get", keys.get(0), redisTemplate.execute(connection -> connection.stringCommands().mGet(rawKeys))
+                .next())
+                .map(rawValues -> {
+                    List<Optional<Object>> values = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        // Lettuce trả về buffer rỗng cho key không tồn tại
+                        ByteBuffer raw = rawValues.get(i);
+                        if (raw == null || !raw.hasRemaining()) {
+                            values.add(Optional.empty());
+                            continue;
+                        }
+                        metrics.valueSize("multi-get", keys.get(i), raw.remaining());
+                        values.add(Optional.ofNullable(valueCodecs.forKey(keys.get(i)).deserialize(ByteUtils.getBytes(raw))));
+                    }
+                    return values;
+                });
+    }
+
+    @Override
+    public Mono<Void> multiSet(Collection<RedisEntry> entries) {
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        return measure("multi-set", entries.iterator().next().key(), redisTemplate.execute(connection -> Flux.fromIterable(entries)
+                        .flatMap(entry -> {
+                            byte[] rawValue = valueCodecs.forKey(entry.key()).serialize(entry.value());
+                            metrics.valueSize("multi-set", entry.key(), rawValue.length);
+                            return connection.stringCommands().set(
+                                    ByteBuffer.wrap(KEY_SERIALIZER.serialize(entry.key())),
+                                    ByteBuffer.wrap(rawValue),
+                                    Expiration.from(entry.ttl(), entry.timeUnit()),
+                                    RedisStringCommands.SetOption.upsert());
+                        }))
+                .then());
+    }
+
+    @Override
+    public Mono<Long> multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return measure("multi-delete", keys.iterator().next(), redisTemplate.delete(keys.toArray(String[]::new)));
+    }
+
+    @Override
+    public Mono<Void> publish(String channel, Object message) {
+        return measure("publish", channel, redisTemplate.convertAndSend(channel, message).then());
+    }
+
+    @Override
+    public Mono<Void> addToSortedSet(String key, Object member, double score) {
+        return measure("zadd", key, redisTemplate.opsForZSet().add(key, member, score).then());
+    }
+
+    @Override
+    public Mono<Double> getSortedSetScore(String key, Object member) {
+        return measure("zscore", key, redisTemplate.opsForZSet().score(key, member));
+    }
+
+    @Override
+    public Flux<Object> rangeSortedSetByScore(String key, double min, double max) {
+        return measure("zrange-by-score", key, redisTemplate.opsForZSet().rangeByScore(key, Range.closed(min, max)));
+    }
+
+    @Override
+    public Mono<Long> removeSortedSetRangeByScore(String key, double min, double max) {
+        return measure("zremrange-by-score", key, redisTemplate.opsForZSet().removeRangeByScore(key, Range.closed(min, max)));
+    }
+
+    @Override
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return measure("script", keys.isEmpty() ? null : keys.get(0), redisTemplate.execute(script, keys, List.of(args)));
+    }
+
+    @Override
+    public <T> Mono<T> getHashField(String key, String field, Class<T> clazz) {
+        return measure("hget", key, redisTemplate.opsForHash().get(key, field)).filter(clazz::isInstance).map(clazz::cast);
+    }
+
+    @Override
+    public Mono<Map<String, Object>> getHash(String key) {
+        return measure("hgetall", key, redisTemplate.opsForHash().entries(key)
+                .collectMap(entry -> (String) entry.getKey(), Map.Entry::getValue));
+    }
+
+    @Override
+    public Mono<Long> deleteHashFields(String key, String... fields) {
+        if (fields.length == 0) {
+            return Mono.just(0L);
+        }
+        return measure("hdel", key, redisTemplate.opsForHash().remove(key, (Object[]) fields));
+    }
+
+    private <T> Mono<T> measure(String operation, String key, Mono<T> command) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return command
+                    .doOnSuccess(result -> metrics.success(operation, key, start))
+                    .doOnError(error -> metrics.failure(operation, key, start, error));
+        });
+    }
+
+    private <T> Flux<T> measure(String operation, String key, Flux<T> command) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return command
+                    .doOnComplete(() -> metrics.success(operation, key, start))
+                    .doOnError(error -> metrics.failure(operation, key, start, error));
+        });
+    }
+
+    /**
+     * Serialize value bằng codec của key family trước để đo được kích thước value thực gửi đi (giống RedisService)
+     */
+    private Mono<Boolean> writeRaw(String operation, String key, Object value, Expiration expiration,
+                                   RedisStringCommands.SetOption option) {
+        return Mono.defer(() -> {
+            byte[] rawValue = valueCodecs.forKey(key).serialize(value);
+            metrics.valueSize(operation, key, rawValue.length);
+            return measure(operation, key, redisTemplate.execute(connection -> connection.stringCommands()
+                            .set(ByteBuffer.wrap(KEY_SERIALIZER.serialize(key)), ByteBuffer.wrap(rawValue), expiration, option))
+                    .next()
+                    .defaultIfEmpty(false));
+        });
+    }
+}
@@ -1,21 +1,62 @@
 package com.training.demo.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.demo.helpers.redis.RedisCommandMetrics;
+import com.training.demo.helpers.redis.RedisValueCodecs;
 import com.training.demo.service.RedisService;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import com.training.demo.utils.helper.RedisEntry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
-@Slf4j
-@RequiredArgsConstructor
 public class RedisServiceImpl implements RedisService {
 
+    private static final StringRedisSerializer KEY_SERIALIZER = StringRedisSerializer.UTF_8;
+    private static final RedisSerializer<Object> RAW_ARGS_SERIALIZER = new RedisSerializer<>() {
+        @Override
+        public byte[] serialize(Object value) {
+            return value instanceof byte[] raw ? raw : KEY_SERIALIZER.serialize(String.valueOf(value));
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final RedisValueCodecs valueCodecs;
+    private final RedisCommandMetrics metrics;
+
+    /**
+     * Value được ghi bằng serializer của key family ({@link RedisValueCodecs}), mặc định JSON.
+     * Mỗi thao tác được đo latency/kích thước value/lỗi theo key family ({@link RedisCommandMetrics}).
+     */
+    public RedisServiceImpl(RedisTemplate<String, Object> redisTemplate,
+                            RedisValueCodecs valueCodecs,
+                            RedisCommandMetrics metrics) {
+        this.redisTemplate = redisTemplate;
+        this.valueCodecs = valueCodecs;
+        this.metrics = metrics;
+    }
 
     /**
      * Lưu key-value với TTL vào Redis
@@ -27,8 +68,30 @@ public class RedisServiceImpl implements RedisService {
      */
     @Override
     public void set(String key, Object value, long ttl, TimeUnit timeUnit) {
-        log.info("Insert to Redis with key: {}", key);
-        redisTemplate.opsForValue().set(key, value, ttl, timeUnit);
+        // serialize trước để đo được kích thước value thực gửi đi
+        byte[] rawValue = valueSerializer(key).serialize(value);
+        metrics.valueSize("set", key, rawValue.length);
+        measure("set", key, () -> redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(KEY_SERIALIZER.serialize(key), rawValue,
+                        Expiration.from(ttl, timeUnit), RedisStringCommands.SetOption.upsert())));
+    }
+
+    /**
+     * Lưu key-value với TTL nếu key chưa tồn tại (SET NX)
+     *
+     * @param key      Redis key
+     * @param value    Redis value
+     * @param ttl      Thời gian sống (timeout)
+     * @param timeUnit Đơn vị thời gian
+     * @return true nếu đã ghi, false nếu key đã tồn tại
+     */
+    @Override
+    public boolean setIfAbsent(String key, Object value, long ttl, TimeUnit timeUnit) {
+        byte[] rawValue = valueSerializer(key).serialize(value);
+        metrics.valueSize("set-nx", key, rawValue.length);
+        return Boolean.TRUE.equals(measure("set-nx", key, () -> redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(KEY_SERIALIZER.serialize(key), rawValue,
+                        Expiration.from(ttl, timeUnit), RedisStringCommands.SetOption.ifAbsent()))));
     }
 
     /**
@@ -39,8 +102,13 @@ public class RedisServiceImpl implements RedisService {
      */
     @Override
     public Object get(String key) {
-        log.info("Get value by key: {}", key);
-        return redisTemplate.opsForValue().get(key);
+        byte[] rawValue = measure("get", key, () -> redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().get(KEY_SERIALIZER.serialize(key))));
+        if (rawValue == null) {
+            return null;
+        }
+        metrics.valueSize("get", key, rawValue.length);
+        return valueSerializer(key).deserialize(rawValue);
     }
 
     /**
@@ -52,45 +120,280 @@ public class RedisServiceImpl implements RedisService {
      */
     @Override
     public <T> Optional<T> get(String key, Class<T> clazz) {
-        Object value = redisTemplate.opsForValue().get(key);
-        if (value == null) {
-            return Optional.empty();
+        Object value = get(key);
+        return clazz.isInstance(value) ? Optional.of(clazz.cast(value)) : Optional.empty();
+    }
+
+    /**
+     * Kiểm tra key có tồn tại trong Redis hay không
+     *
+     * @param key Redis key
+     * @return true nếu tồn tại, false nếu không
+     */
+    @Override
+    public boolean exists(String key) {
+        return Boolean.TRUE.equals(measure("exists", key, () -> redisTemplate.hasKey(key)));
+    }
+
+    /**
+     * Xóa key trong Redis
+     *
+     * @param key Redis key
+     * @return true nếu xóa thành công, false nếu key không tồn tại
+     */
+    @Override
+    public boolean delete(String key) {
+        return Boolean.TRUE.equals(measure("delete", key, () -> redisTemplate.delete(key)));
+    }
+
+    /**
+     * Lấy giá trị của nhiều key trong một lệnh MGET
+     *
+     * @param keys danh sách Redis key
+     * @return danh sách giá trị theo đúng thứ tự key, phần tử null nếu key không tồn tại
+     */
+    @Override
+    public List<Object> multiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
         }
+        byte[][] rawKeys = keys.stream().map(KEY_SERIALIZER::serialize).toArray(byte[][]::new);
+        List<byte[]> rawValues = measure("multi-get", keys.get(0), () -> redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys)));
 
-        if (clazz.isInstance(value)) {
-            return Optional.of(clazz.cast(value));
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] raw = rawValues != null ? rawValues.get(i) : null;
+            if (raw != null) {
+                metrics.valueSize("multi-get", keys.get(i), raw.length);
+            }
+            values.add(raw == null ? null : valueSerializer(keys.get(i)).deserialize(raw));
         }
+        return values;
+    }
 
-        if (value instanceof String str) {
-            try {
-                return Optional.of(objectMapper.readValue(str, clazz));
-            } catch (Exception e) {
-                log.error("Failed to parse value from Redis for key: {}", key, e);
+    /**
+     * Ghi nhiều key, mỗi key một TTL riêng, trong một pipeline
+     *
+     * @param entries danh sách key-value-TTL
+     */
+    @Override
+    public void multiSet(Collection<RedisEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[]> rawValues = new ArrayList<>(entries.size());
+        for (RedisEntry entry : entries) {
+            byte[] rawValue = valueSerializer(entry.key()).serialize(entry.value());
+            metrics.valueSize("multi-set", entry.key(), rawValue.length);
+            rawValues.add(rawValue);
+        }
+        String firstKey = entries.iterator().next().key();
+        measure("multi-set", firstKey, () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            int i = 0;
+            for (RedisEntry entry : entries) {
+                connection.stringCommands().set(
+                        KEY_SERIALIZER.serialize(entry.key()),
+                        rawValues.get(i++),
+                        Expiration.from(entry.ttl(), entry.timeUnit()),
+                        RedisStringCommands.SetOption.upsert());
             }
+            return null;
+        }));
+    }
+
+    /**
+     * Xóa nhiều key trong một lệnh DEL
+     *
+     * @param keys danh sách Redis key
+     * @return số key đã xóa
+     */
+    @Override
+    public long multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
         }
+        Long removed = measure("multi-delete", keys.iterator().next(), () -> redisTemplate.delete(keys));
+        return removed != null ? removed : 0;
+    }
 
-        return Optional.empty();
+    /**
+     * Publish message lên một channel Redis pub/sub
+     *
+     * @param channel tên channel
+     * @param message nội dung message
+     */
+    @Override
+    public void publish(String channel, Object message) {
+        measure("publish", channel, () -> redisTemplate.convertAndSend(channel, message));
     }
 
     /**
-     * Kiểm tra key có tồn tại trong Redis hay không
+     * Thêm member vào sorted set với score
+     *
+     * @param key    Redis key
+     * @param member member
+     * @param score  score
+     */
+    @Override
+    public void addToSortedSet(String key, Object member, double score) {
+        measure("zadd", key, () -> redisTemplate.opsForZSet().add(key, member, score));
+    }
+
+    /**
+     * Lấy score của member trong sorted set
+     *
+     * @param key    Redis key
+     * @param member member
+     * @return Optional score, empty nếu member không tồn tại
+     */
+    @Override
+    public Optional<Double> getSortedSetScore(String key, Object member) {
+        return Optional.ofNullable(measure("zscore", key, () -> redisTemplate.opsForZSet().score(key, member)));
+    }
+
+    /**
+     * Lấy các member có score trong khoảng [min, max]
      *
      * @param key Redis key
-     * @return true nếu tồn tại, false nếu không
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return tập member
      */
     @Override
-    public boolean exists(String key) {
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    public Set<Object> rangeSortedSetByScore(String key, double min, double max) {
+        Set<Object> members = measure("zrange-by-score", key, () -> redisTemplate.opsForZSet().rangeByScore(key, min, max));
+        return members != null ? members : Set.of();
     }
 
     /**
-     * Xóa key trong Redis
+     * Xóa các member có score trong khoảng [min, max]
      *
      * @param key Redis key
-     * @return true nếu xóa thành công, false nếu key không tồn tại
+     * @param min score nhỏ nhất
+     * @param max score lớn nhất
+     * @return số member đã xóa
      */
     @Override
-    public boolean delete(String key) {
-        return Boolean.TRUE.equals(redisTemplate.delete(key));
+    public long removeSortedSetRangeByScore(String key, double min, double max) {
+        Long removed = measure("zremrange-by-score", key, () -> redisTemplate.opsForZSet().removeRangeByScore(key, min, max));
+        return removed != null ? removed : 0;
+    }
+
+    /**
+     * Thực thi Lua script phía Redis (nguyên tử, một round trip)
+     *
+     * @param script script cần chạy
+     * @param keys   danh sách KEYS
+     * @param args   danh sách ARGV (serialize bằng value serializer)
+     * @return kết quả script
+     */
+    @Override
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return measure("script", keys.isEmpty() ? null : keys.get(0), () -> redisTemplate.execute(script, keys, args));
+    }
+
+    /**
+     * Thực thi Lua script với ARGV dạng raw (byte[] giữ nguyên, giá trị khác dùng String.valueOf)
+     *
+     * @param script script cần chạy
+     * @param keys   danh sách KEYS
+     * @param args   danh sách ARGV
+     * @return kết quả script
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T executeWithRawArgs(RedisScript<T> script, List<String> keys, Object... args) {
+        return measure("script", keys.isEmpty() ? null : keys.get(0), () -> redisTemplate.execute(script,
+                RAW_ARGS_SERIALIZER, (RedisSerializer<T>) redisTemplate.getValueSerializer(), keys, args));
+    }
+
+    /**
+     * Lấy một field của hash và convert về kiểu mong muốn (HGET)
+     *
+     * @param key   Redis key
+     * @param field hash field
+     * @param clazz Kiểu dữ liệu mong muốn
+     * @return Optional<T>, empty nếu field không tồn tại
+     */
+    @Override
+    public <T> Optional<T> getHashField(String key, String field, Class<T> clazz) {
+        Object value = measure("hget", key, () -> redisTemplate.opsForHash().get(key, field));
+        return clazz.isInstance(value) ? Optional.of(clazz.cast(value)) : Optional.empty();
+    }
+
+    /**
+     * Lấy toàn bộ field của hash (HGETALL)
+     *
+     * @param key Redis key
+     * @return map field -> value, rỗng nếu key không tồn tại
+     */
+    @Override
+    public Map<String, Object> getHash(String key) {
+        Map<String, Object> entries = new HashMap<>();
+        measure("hgetall", key, () -> redisTemplate.opsForHash().entries(key))
+                .forEach((field, value) -> entries.put((String) field, value));
+        return entries;
+    }
+
+    /**
+     * Xóa các field của hash (HDEL)
+     *
+     * @param key    Redis key
+     * @param fields các field cần xóa
+     * @return số field đã xóa
+     */
+    @Override
+    public long deleteHashFields(String key, String... fields) {
+        if (fields.length == 0) {
+            return 0;
+        }
+        Long removed = measure("hdel", key, () -> redisTemplate.opsForHash().delete(key, (Object[]) fields));
+        return removed != null ? removed : 0;
+    }
+
+    /**
+     * Gửi nhiều lệnh trong một pipeline (một round trip)
+     *
+     * @param callback các lệnh cần gửi
+     * @return kết quả của từng lệnh theo thứ tự
+     */
+    @Override
+    public List<Object> executePipelined(SessionCallback<?> callback) {
+        return measure("pipeline", null, () -> redisTemplate.executePipelined(callback));
+    }
+
+    /**
+     * Thực thi các lệnh trong một transaction MULTI/EXEC
+     *
+     * @param callback các lệnh cần thực thi (không gọi multi/exec bên trong)
+     * @return kết quả của từng lệnh theo thứ tự
+     */
+    @Override
+    public List<Object> executeInTransaction(SessionCallback<?> callback) {
+        return measure("transaction", null, () -> redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            public <K, V> List<Object> execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
+                operations.multi();
+                callback.execute(operations);
+                return operations.exec();
+            }
+        }));
+    }
+
+    private <T> T measure(String operation, String key, Supplier<T> command) {
+        long start = System.nanoTime();
+        try {
+            T result = command.get();
+            metrics.success(operation, key, start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failure(operation, key, start, e);
+            throw e;
+        }
+    }
+
+    private RedisSerializer<Object> valueSerializer(String key) {
+        return valueCodecs.forKey(key);
     }
 }
@@ -17,12 +17,19 @@ import com.training.demo.helpers.GenericSpecificationsBuilder;
 import com.training.demo.mapper.UserMapper;
 import com.training.demo.repository.RoleRepository;
 import com.training.demo.repository.UserRepository;
+import com.training.demo.security.PrincipalCache;
 import com.training.demo.security.SecurityUtils;
+import com.training.demo.security.TokenVersionCache;
+import com.training.demo.security.UserExistenceFilter;
 import com.training.demo.service.UserService;
+import com.training.demo.utils.constants.CacheConstants;
 import com.training.demo.utils.enums.RoleType;
 import com.training.demo.utils.enums.UserStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +39,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.training.demo.mapper.UserMapper.toUserDetailsResponse;
 import static com.training.demo.mapper.UserMapper.toUserResponse;
@@ -44,6 +53,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository;
+    private final PrincipalCache principalCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserExistenceFilter userExistenceFilter;
 
     /**
      * Register a new user account.
@@ -57,7 +69,8 @@ public class UserServiceImpl implements UserService {
 
         validateFieldUser(request.getUsername(), request.getEmail());
 
-        Role role = roleRepository.findByName(RoleType.USER)
+        Role role = roleRepository.findResponseByName(RoleType.USER)
+                .map(found -> roleRepository.getReferenceById(found.getId()))
                 .orElseThrow(() -> new NotFoundException("Role user not found"));
 
         User user = User.builder()
@@ -75,7 +88,7 @@ public class UserServiceImpl implements UserService {
 
         user.getUserHasRoles().add(userHasRole);
 
-        userRepository.save(user);
+        saveNewUser(user);
         log.info("Registered new account successfully with username: {}", request.getUsername());
     }
 
@@ -90,7 +103,8 @@ public class UserServiceImpl implements UserService {
 
         validateFieldUser(request.getUsername(), request.getEmail());
 
-        Role role = roleRepository.findByName(request.getRole())
+        Role role = roleRepository.findResponseByName(request.getRole())
+                .map(found -> roleRepository.getReferenceById(found.getId()))
                 .orElseThrow(() -> new NotFoundException("Role not found"));
 
         User user = User.builder()
@@ -108,7 +122,7 @@ public class UserServiceImpl implements UserService {
 
         user.getUserHasRoles().add(userHasRole);
 
-        userRepository.save(user);
+        saveNewUser(user);
         log.info("Admin created new account successfully with username: {}", request.getUsername());
     }
 
@@ -119,6 +133,8 @@ public class UserServiceImpl implements UserService {
      * @return Các thông tin cơ bản
      */
     @Override
+    @Cacheable(cacheNames = CacheConstants.USERS, key = "#id",
+            condition = "T(com.training.demo.security.SecurityUtils).getCurrentUserId() == #id")
     public UserResponse getUser(Long id) {
         log.info("[UserService] Get user by userId: {}", id);
         User user = getUserIfAuthorized(id);
@@ -172,7 +188,10 @@ public class UserServiceImpl implements UserService {
 
         validatePassword(request, user);
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
+        tokenVersionCache.invalidate(user.getUsername());
     }
 
     /**
@@ -181,6 +200,7 @@ public class UserServiceImpl implements UserService {
      * @param id userId cần xóa
      */
     @Override
+    @CacheEvict(cacheNames = CacheConstants.USERS, key = "#id")
     public void deleteUser(Long id) {
         log.info("[UserService] Delete user by userId: {}", id);
 
@@ -195,7 +215,10 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException("User has been locked");
         } else {
             user.setStatus(UserStatus.INACTIVE);
+            user.setTokenVersion(user.getTokenVersion() + 1);
             userRepository.save(user);
+            principalCache.evict(user.getUsername());
+            tokenVersionCache.invalidate(user.getUsername());
         }
     }
 
@@ -230,6 +253,7 @@ public class UserServiceImpl implements UserService {
      */
     @Transactional
     @Override
+    @CacheEvict(cacheNames = CacheConstants.USERS, key = "#id")
     public void updateUser(Long id, UpdateUserRequest request) {
         log.info("[UserService] Update user by userId: {}", id);
 
@@ -243,15 +267,22 @@ public class UserServiceImpl implements UserService {
             user.setLastName(request.getLastName());
         }
 
+        boolean revokeTokens = false;
         if (SecurityUtils.hasRole(RoleType.ADMIN.name())) {
             if (request.getStatus() != null) {
+                // khóa tài khoản phải vô hiệu cả token đã cấp, như khi admin xóa user
+                revokeTokens = request.getStatus() == UserStatus.INACTIVE && user.getStatus() != UserStatus.INACTIVE;
                 user.setStatus(request.getStatus());
             }
 
-            if (request.getRoles() != null && !request.getRoles().isEmpty()) {
+            if (request.getRoles() != null && !request.getRoles().isEmpty()
+                    && !currentRoles(user).equals(Set.copyOf(request.getRoles()))) {
+                // quyền nằm trong token đã cấp: đổi role thì buộc đăng nhập lại
+                revokeTokens = true;
                 user.getUserHasRoles().clear();
                 for (RoleType roleType : request.getRoles()) {
-                    Role role = roleRepository.findByName(roleType)
+                    Role role = roleRepository.findResponseByName(roleType)
+                            .map(found -> roleRepository.getReferenceById(found.getId()))
                             .orElseThrow(() -> new NotFoundException("Role not found"));
                     UserHasRole userHasRole = UserHasRole.builder()
                             .user(user)
@@ -263,7 +294,43 @@ public class UserServiceImpl implements UserService {
             user.setVerifyEmail(request.isVerifyEmail());
         }
 
+        if (revokeTokens) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
+        if (revokeTokens) {
+            tokenVersionCache.invalidate(user.getUsername());
+        }
+    }
+
+    /**
+     * Thu hồi mọi token đã cấp cho user (tăng token version)
+     *
+     * @param id userId
+     */
+    @Override
+    public void revokeTokens(Long id) {
+        log.info("[UserService] Revoke all tokens of userId: {}", id);
+
+        User user = getUserById(id);
+        userRepository.incrementTokenVersion(user.getId());
+        tokenVersionCache.invalidate(user.getUsername());
+    }
+
+    /**
+     * Thu hồi mọi token của các user có role chỉ định trong một câu UPDATE
+     *
+     * @param role role
+     * @return số user bị ảnh hưởng
+     */
+    @Override
+    public int revokeTokensByRole(RoleType role) {
+        log.info("[UserService] Revoke all tokens of role: {}", role);
+
+        int updated = userRepository.incrementTokenVersionByRole(role);
+        tokenVersionCache.invalidateAll();
+        return updated;
     }
 
     /**
@@ -276,6 +343,18 @@ public class UserServiceImpl implements UserService {
         return userRepository.count();
     }
 
+    /**
+     * Kiểm tra username còn trống để đăng ký. Bloom filter báo chắc chắn chưa có thì trả lời ngay,
+     * chỉ hỏi DB khi filter báo có thể đã tồn tại
+     *
+     * @param username username cần kiểm tra
+     * @return true nếu chưa có user nào dùng username này
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !userExistenceFilter.mightContainUsername(username) || !userRepository.existsByUsername(username);
+    }
+
     //========== PRIVATE METHOD ==========//
     private void validatePassword(ChangePasswordRequest request, User user) {
         if (request.getNewPassword().equals(request.getOldPassword())) {
@@ -295,15 +374,35 @@ public class UserServiceImpl implements UserService {
     }
 
     private void validateFieldUser(String username, String email) {
-        if (userRepository.existsByUsername(username)) {
+        // filter không có false negative: chỉ hỏi DB khi filter báo có thể đã tồn tại
+        if (userExistenceFilter.mightContainUsername(username) && userRepository.existsByUsername(username)) {
             throw new BadRequestException("Username already exists");
         }
 
-        if (userRepository.existsByEmail(email)) {
+        if (userExistenceFilter.mightContainEmail(email) && userRepository.existsByEmail(email)) {
             throw new BadRequestException("Email already exists");
         }
     }
 
+    /**
+     * Lưu user mới. Unique constraint username/email của DB là lần kiểm tra cuối, chặn hai request đăng ký
+     * trùng nhau cùng lọt qua validateFieldUser (hoặc filter của node chưa nhận user mới)
+     */
+    private void saveNewUser(User user) {
+        userExistenceFilter.add(user.getUsername(), user.getEmail());
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException("Username or email already exists");
+        }
+    }
+
+    private Set<RoleType> currentRoles(User user) {
+        return user.getUserHasRoles().stream()
+                .map(userHasRole -> userHasRole.getRole().getName())
+                .collect(Collectors.toSet());
+    }
+
     private User getUserIfAuthorized(Long id) {
         Long currentUserId = SecurityUtils.getCurrentUserId();
         if (!Objects.equals(currentUserId, id) && !SecurityUtils.hasRole(RoleType.ADMIN.name())) {
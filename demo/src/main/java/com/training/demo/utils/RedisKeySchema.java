@@ -0,0 +1,97 @@
+package com.training.demo.utils;
+
+import com.training.demo.utils.enums.OtpType;
+import com.training.demo.utils.enums.RedisKeyFamily;
+
+/**
+ * Registry tập trung cho mọi Redis key của ứng dụng.
+ * Phần định danh (email, username) được bọc trong hash tag {@code {...}}: Redis Cluster chỉ băm phần trong ngoặc,
+ * nên các key liên quan của cùng một user luôn nằm chung slot và vẫn dùng được MGET, pipeline hay Lua script
+ * nhiều key khi Redis được shard.
+ */
+public final class RedisKeySchema {
+
+    public static final String OTP_PREFIX = "OTP:";
+    public static final String OTP_SEND_COUNT_PREFIX = "OTP_SEND_COUNT:";
+    public static final String OTP_VERIFY_KEY_PREFIX = "OTP_VERIFY_KEY:";
+    public static final String OTP_USED_PREFIX = "OTP_USED:";
+    public static final String SESSION_PREFIX = "session:";
+    public static final String TOKEN_DENYLIST_KEY = "jwt:denylist";
+    public static final String USER_FILTER_PREFIX = "user_filter:";
+    public static final String USER_FILTER_SNAPSHOT_KEY = USER_FILTER_PREFIX + "snapshot";
+    public static final String USER_FILTER_REBUILD_LOCK_KEY = USER_FILTER_PREFIX + "rebuild_lock";
+    public static final String USER_FILTER_ADDITIONS_KEY = USER_FILTER_PREFIX + "additions";
+
+    private RedisKeySchema() {
+    }
+
+    /**
+     * OTP đang chờ xác thực, cùng slot với {@link #otpSendCountKey(String, OtpType)}
+     */
+    public static String otpKey(String email, OtpType type) {
+        return OTP_PREFIX + hashTag(email) + ":" + type.name();
+    }
+
+    /**
+     * Số lần đã gửi OTP trong cửa sổ resend
+     */
+    public static String otpSendCountKey(String email, OtpType type) {
+        return OTP_SEND_COUNT_PREFIX + hashTag(email) + ":" + type.name();
+    }
+
+    /**
+     * Verify key cấp sau khi xác thực OTP (key ngẫu nhiên, không cần chung slot với key nào)
+     */
+    public static String otpVerifyKey(String verifyKey) {
+        return OTP_VERIFY_KEY_PREFIX + verifyKey;
+    }
+
+    /**
+     * Marker đánh dấu jti của verify key đã ký (chế độ HMAC) đã được dùng
+     */
+    public static String verifyKeyUsedKey(String jti) {
+        return OTP_USED_PREFIX + jti;
+    }
+
+    /**
+     * Hash phiên đăng nhập của user, giữ cả cặp token vừa xoay vòng (field grace) của từng phiên
+     */
+    public static String sessionKey(String username) {
+        return SESSION_PREFIX + hashTag(username);
+    }
+
+    /**
+     * Nhóm của một key theo prefix, dùng làm nhãn metrics
+     *
+     * @param key Redis key
+     * @return RedisKeyFamily, OTHER nếu không thuộc nhóm nào
+     */
+    public static RedisKeyFamily family(String key) {
+        if (key.startsWith(OTP_PREFIX)) {
+            return RedisKeyFamily.OTP;
+        }
+        if (key.startsWith(OTP_SEND_COUNT_PREFIX)) {
+            return RedisKeyFamily.OTP_SEND_COUNT;
+        }
+        if (key.startsWith(OTP_VERIFY_KEY_PREFIX)) {
+            return RedisKeyFamily.OTP_VERIFY;
+        }
+        if (key.startsWith(OTP_USED_PREFIX)) {
+            return RedisKeyFamily.OTP_USED;
+        }
+        if (key.startsWith(SESSION_PREFIX)) {
+            return RedisKeyFamily.SESSION;
+        }
+        if (key.equals(TOKEN_DENYLIST_KEY)) {
+            return RedisKeyFamily.TOKEN_DENYLIST;
+        }
+        if (key.startsWith(USER_FILTER_PREFIX)) {
+            return RedisKeyFamily.USER_FILTER;
+        }
+        return RedisKeyFamily.OTHER;
+    }
+
+    private static String hashTag(String id) {
+        return "{" + id + "}";
+    }
+}
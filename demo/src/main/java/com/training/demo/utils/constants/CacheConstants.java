@@ -0,0 +1,8 @@
+package com.training.demo.utils.constants;
+
+public class CacheConstants {
+    // cache chứa RoleResponse (id + tên); đổi tên khỏi "roles" để không đọc lại entity Role đã cache ở L2
+    public static final String ROLES = "role-refs";
+    public static final String USERS = "users";
+    public static final String KEY_PREFIX = "cache:";
+}
@@ -5,6 +5,7 @@ public class MailConstants {
     public static final int MAX_POOL_SIZE = 5;
     public static final int QUEUE_CAPACITY = 100;
     public static final String THREAD_NAME_PREFIX = "Email-";
+    public static final int SMTP_TIMEOUT_MS = 10_000;
     public static final String PREFIX = "templates/";
     public static final String SUFFIX = ".html";
     public static final String ENCODING = "UTF-8";
@@ -0,0 +1,6 @@
+package com.training.demo.utils.enums;
+
+public enum AccessTokenMode {
+    STATEFUL,
+    STATELESS
+}
@@ -0,0 +1,25 @@
+package com.training.demo.utils.enums;
+
+import lombok.Getter;
+
+/**
+ * Nhóm key Redis theo mục đích, dùng làm nhãn cho metrics (xem RedisKeySchema#family).
+ * Không có nhóm cho cache @Cacheable vì RedisCacheManager ghi thẳng qua connection, không đi qua RedisService.
+ */
+@Getter
+public enum RedisKeyFamily {
+    OTP("otp"),
+    OTP_SEND_COUNT("otp-count"),
+    OTP_VERIFY("otp-verify"),
+    OTP_USED("otp-used"),
+    SESSION("session"),
+    TOKEN_DENYLIST("denylist"),
+    USER_FILTER("user-filter"),
+    OTHER("other");
+
+    private final String metricName;
+
+    RedisKeyFamily(String metricName) {
+        this.metricName = metricName;
+    }
+}
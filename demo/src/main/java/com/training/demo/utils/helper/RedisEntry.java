@@ -0,0 +1,18 @@
+package com.training.demo.utils.helper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Một cặp key-value kèm TTL riêng, dùng cho ghi nhiều key trong một pipeline
+ *
+ * @param key      Redis key
+ * @param value    Redis value
+ * @param ttl      Thời gian sống (timeout)
+ * @param timeUnit Đơn vị thời gian
+ */
+public record RedisEntry(String key, Object value, long ttl, TimeUnit timeUnit) {
+
+    public static RedisEntry of(String key, Object value, long ttl, TimeUnit timeUnit) {
+        return new RedisEntry(key, value, ttl, timeUnit);
+    }
+}
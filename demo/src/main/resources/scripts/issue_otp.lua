@@ -0,0 +1,38 @@
+-- Cấp OTP nguyên tử trong một round trip: kiểm tra cooldown + quota, lưu OTP, tăng bộ đếm gửi.
+-- KEYS[1] OTP hash (STORED: field code, attempts | HMAC: field issue, attempts, used),
+-- KEYS[2] send-count key (chung hash tag email nên cùng slot)
+-- ARGV[1] mã OTP, rỗng ở chế độ HMAC: không lưu OTP, không cooldown, chỉ tăng số thứ tự lần cấp (issue)
+-- ARGV[2] TTL của OTP hash (s),
+-- ARGV[3] TTL cửa sổ đếm (s), ARGV[4] số lần gửi tối đa trong cửa sổ
+-- ARGV truyền dạng raw (không qua JSON) nên dùng trực tiếp.
+-- Trả về: STORED số lần gửi sau khi tăng, HMAC số thứ tự lần cấp (> 0) | 0 OTP cũ còn hiệu lực (cooldown) | -1 vượt quota
+
+local store = ARGV[1] ~= ''
+if store and redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+
+local count = tonumber(redis.call('GET', KEYS[2]) or '0')
+if count >= tonumber(ARGV[4]) then
+    return -1
+end
+
+local issue
+if store then
+    redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+else
+    -- HMAC: mã dẫn xuất từ số thứ tự lần cấp nên mỗi lần gửi lại là một mã mới.
+    -- Hash sống hết 2 cửa sổ kể từ lần cấp cuối, số thứ tự không bị reset khi mã cũ còn hiệu lực.
+    -- Bộ đếm lần sai thuộc về từng lần cấp: gửi lại (bị giới hạn bởi quota) bắt đầu bộ đếm mới,
+    -- người chỉ biết email không thể khóa OTP của nạn nhân vô thời hạn.
+    issue = redis.call('HINCRBY', KEYS[1], 'issue', 1)
+    redis.call('HSET', KEYS[1], 'attempts', 0)
+    redis.call('HDEL', KEYS[1], 'used')
+end
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+-- INCR giữ nguyên TTL của key, chỉ đặt TTL cửa sổ ở lần gửi đầu tiên
+count = redis.call('INCR', KEYS[2])
+if count == 1 then
+    redis.call('EXPIRE', KEYS[2], ARGV[3])
+end
+return issue or count
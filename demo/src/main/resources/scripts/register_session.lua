@@ -0,0 +1,72 @@
+-- Đăng ký phiên mới của user nguyên tử trong một round trip: dọn phiên hết hạn, loại phiên cũ nhất khi vượt giới hạn,
+-- ghi phiên mới và gia hạn TTL của hash.
+-- Phiên lưu trong hash KEYS[1], field = sid, value = "accessJti|refreshJti|accessExp|refreshExp|createdAt";
+-- field "grace:<sid>" = "fromJti|accessToken|refreshToken|expiresAt" là cặp token vừa xoay vòng của phiên đó.
+-- ARGV[1] sid, ARGV[2] phiên mới (đã encode), ARGV[3] TTL session hash (s), ARGV[4] số phiên tối đa,
+-- ARGV[5] thời điểm hiện tại (ms)
+-- Các ARGV dạng chuỗi được serialize JSON nên cần cjson.decode trước khi so sánh/ghép.
+-- Trả về: danh sách phiên còn hiệu lực bị loại (đã encode JSON), cũ nhất trước
+
+local sid = cjson.decode(ARGV[1])
+local maxSessions = tonumber(ARGV[4])
+local now = tonumber(ARGV[5])
+
+local fields = redis.call('HGETALL', KEYS[1])
+local active = {}
+local graces = {}
+local stale = {}
+
+for i = 1, #fields, 2 do
+    local field, value = fields[i], fields[i + 1]
+    if string.sub(field, 1, 6) == 'grace:' then
+        graces[#graces + 1] = { field = field, sid = string.sub(field, 7), value = value }
+    elseif field ~= sid then
+        local ok, decoded = pcall(cjson.decode, value)
+        local refreshExp, created
+        if ok and type(decoded) == 'string' then
+            refreshExp, created = string.match(decoded, '^[^|]*|[^|]*|[^|]*|([^|]*)|([^|]*)$')
+        end
+        if tonumber(refreshExp) and tonumber(refreshExp) > now then
+            active[#active + 1] = { field = field, created = tonumber(created) or 0, value = value }
+        else
+            stale[#stale + 1] = field
+        end
+    end
+end
+
+table.sort(active, function(a, b)
+    if a.created == b.created then
+        return a.field < b.field
+    end
+    return a.created < b.created
+end)
+
+local kept = { [sid] = true }
+local evicted = {}
+local evictCount = #active - (maxSessions - 1)
+for i = 1, #active do
+    if i <= evictCount then
+        stale[#stale + 1] = active[i].field
+        evicted[#evicted + 1] = active[i].value
+    else
+        kept[active[i].field] = true
+    end
+end
+
+-- grace của phiên đã bị dọn/loại hoặc đã quá grace window
+for _, grace in ipairs(graces) do
+    local ok, decoded = pcall(cjson.decode, grace.value)
+    local expiresAt = ok and type(decoded) == 'string' and tonumber(string.match(decoded, '|(%d+)$'))
+    if not kept[grace.sid] or not expiresAt or expiresAt <= now then
+        stale[#stale + 1] = grace.field
+    end
+end
+
+if #stale > 0 then
+    redis.call('HDEL', KEYS[1], unpack(stale))
+end
+redis.call('HSET', KEYS[1], sid, ARGV[2])
+if redis.call('TTL', KEYS[1]) < tonumber(ARGV[3]) then
+    redis.call('EXPIRE', KEYS[1], ARGV[3])
+end
+return evicted
@@ -0,0 +1,55 @@
+-- Xoay vòng refreshToken của một phiên (thiết bị) nguyên tử trong một round trip.
+-- Phiên lưu trong hash KEYS[1], field = sid, value = "accessJti|refreshJti|accessExp|refreshExp|createdAt";
+-- field "grace:<sid>" = "fromJti|accessToken|refreshToken|expiresAt" giữ cặp token vừa cấp, phục vụ client retry.
+-- Grace nằm chung hash với phiên nên logout mọi thiết bị chỉ cần một lệnh DEL.
+-- ARGV[1] sid, ARGV[2] jti của refreshToken client gửi lên, ARGV[3] jti accessToken mới, ARGV[4] jti refreshToken mới,
+-- ARGV[5] access exp (ms), ARGV[6] refresh exp (ms), ARGV[7] TTL session hash (s), ARGV[8] grace TTL (s),
+-- ARGV[9] accessToken mới, ARGV[10] refreshToken mới (chỉ lưu trong field grace), ARGV[11] thời điểm hiện tại (ms)
+-- Các ARGV dạng chuỗi được serialize JSON nên cần cjson.decode trước khi so sánh/ghép.
+-- Trả về: {1} xoay vòng thành công | {2, access, refresh} retry trong grace window
+--         {0} không có phiên | {-1, accessJti, accessExp} phát hiện refreshToken cũ bị dùng lại, phiên đã bị thu hồi
+
+local field = cjson.decode(ARGV[1])
+local graceField = 'grace:' .. field
+local now = tonumber(ARGV[11])
+local raw = redis.call('HGET', KEYS[1], field)
+
+local session = nil
+if raw then
+    local access, refresh, accessExp, refreshExp, created =
+        string.match(cjson.decode(raw), '^([^|]*)|([^|]*)|([^|]*)|([^|]*)|([^|]*)$')
+    if refresh and tonumber(refreshExp) > now then
+        session = { access = access, accessExp = accessExp, refresh = refresh, created = created }
+    end
+end
+
+-- phiên đã logout/hết hạn: grace không còn giá trị, không trả lại cặp token đã cấp
+if not session then
+    redis.call('HDEL', KEYS[1], field, graceField)
+    return {0}
+end
+
+local presented = cjson.decode(ARGV[2])
+if session.refresh == presented then
+    local record = cjson.decode(ARGV[3]) .. '|' .. cjson.decode(ARGV[4]) .. '|'
+        .. ARGV[5] .. '|' .. ARGV[6] .. '|' .. session.created
+    local grace = presented .. '|' .. cjson.decode(ARGV[9]) .. '|' .. cjson.decode(ARGV[10]) .. '|'
+        .. (now + tonumber(ARGV[8]) * 1000)
+    redis.call('HSET', KEYS[1], field, cjson.encode(record), graceField, cjson.encode(grace))
+    if redis.call('TTL', KEYS[1]) < tonumber(ARGV[7]) then
+        redis.call('EXPIRE', KEYS[1], ARGV[7])
+    end
+    return {1}
+end
+
+local issued = redis.call('HGET', KEYS[1], graceField)
+if issued then
+    local from, access, refresh, expiresAt =
+        string.match(cjson.decode(issued), '^([^|]*)|([^|]*)|([^|]*)|([^|]*)$')
+    if from == presented and (tonumber(expiresAt) or 0) > now then
+        return {2, cjson.encode(access), cjson.encode(refresh)}
+    end
+end
+
+redis.call('HDEL', KEYS[1], field, graceField)
+return {-1, cjson.encode(session.access), tonumber(session.accessExp)}
@@ -0,0 +1,52 @@
+-- Xác thực OTP và đếm số lần sai nguyên tử trong một round trip.
+-- KEYS[1] OTP hash (STORED: field code, attempts | HMAC: field issue, attempts, used)
+-- ARGV[1] mã người dùng nhập, ARGV[2] số lần sai tối đa
+-- ARGV[3] chế độ HMAC: '1' mã đã được kiểm tra đúng ở app, '0' sai | '' chế độ STORED (so với field code)
+-- ARGV[4] chế độ HMAC: số thứ tự lần cấp app đã dùng để dẫn xuất mã
+-- Trả về: {1, còn lại} đúng | {0, còn lại} sai | {-1, 0} không có OTP | {-2, 0} bị khóa do sai quá số lần
+
+local stored = ARGV[3] == ''
+local max = tonumber(ARGV[2])
+
+-- HMAC: OTP đã hết hạn, đã có lần cấp mới hơn từ lúc app đọc issue, hoặc mã của lần cấp này đã được dùng
+if not stored and (redis.call('HGET', KEYS[1], 'issue') ~= ARGV[4] or redis.call('HEXISTS', KEYS[1], 'used') == 1) then
+    return {-1, 0}
+end
+
+local attempts = tonumber(redis.call('HGET', KEYS[1], 'attempts') or '0')
+if attempts >= max then
+    return {-2, 0}
+end
+
+local matched
+if stored then
+    local code = redis.call('HGET', KEYS[1], 'code')
+    if not code then
+        return {-1, 0}
+    end
+    matched = code == ARGV[1]
+else
+    matched = ARGV[3] == '1'
+end
+
+if matched then
+    -- OTP chỉ dùng một lần. HMAC giữ hash (đánh dấu used) để số thứ tự lần cấp không bị reset
+    if stored then
+        redis.call('DEL', KEYS[1])
+    else
+        redis.call('HSET', KEYS[1], 'used', 1)
+    end
+    return {1, max - attempts}
+end
+
+attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+
+local remaining = max - attempts
+if remaining <= 0 then
+    -- STORED: hủy mã sau N lần sai | HMAC: giữ hash để khóa mã của lần cấp này, lần cấp sau có bộ đếm mới
+    if stored then
+        redis.call('DEL', KEYS[1])
+    end
+    return {-2, 0}
+end
+return {0, remaining}
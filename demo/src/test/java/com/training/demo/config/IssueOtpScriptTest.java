@@ -0,0 +1,89 @@
+package com.training.demo.config;
+
+import com.training.demo.utils.RedisKeySchema;
+import com.training.demo.utils.enums.OtpType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * scripts/issue_otp.lua: cooldown, quota, lưu OTP (STORED) và số thứ tự lần cấp (HMAC)
+ */
+class IssueOtpScriptTest extends RedisScriptTestSupport {
+
+    private static final String EMAIL = "user@example.com";
+    private static final OtpType TYPE = OtpType.RESET_PASSWORD;
+    private static final String OTP_KEY = RedisKeySchema.otpKey(EMAIL, TYPE);
+    private static final String SEND_COUNT_KEY = RedisKeySchema.otpSendCountKey(EMAIL, TYPE);
+    private static final long OTP_TTL = 300;
+    private static final long WINDOW_TTL = 600;
+    private static final int MAX_SEND = 3;
+
+    private final RedisScript<Long> script = REDIS_CONFIG.issueOtpScript();
+
+    @Test
+    void storesOtpAndStartsSendCountWindow() {
+        assertThat(issue("123456")).isEqualTo(1);
+
+        assertThat(rawHashField(OTP_KEY, "code")).isEqualTo("123456");
+        assertThat(rawHashField(OTP_KEY, "attempts")).isEqualTo("0");
+        assertThat(ttlSeconds(OTP_KEY)).isBetween(1L, OTP_TTL);
+        assertThat(ttlSeconds(SEND_COUNT_KEY)).isBetween(WINDOW_TTL - 5, WINDOW_TTL);
+    }
+
+    @Test
+    void rejectsWhileStoredOtpIsAlive() {
+        issue("123456");
+
+        assertThat(issue("654321")).isZero();
+        assertThat(rawHashField(OTP_KEY, "code")).isEqualTo("123456");
+        assertThat(redisService.get(SEND_COUNT_KEY)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsOnceQuotaIsUsedWithoutExtendingWindow() {
+        for (int i = 1; i <= MAX_SEND; i++) {
+            assertThat(issue("00000" + i)).isEqualTo(i);
+            redisService.delete(OTP_KEY);
+        }
+        redisTemplate.expire(SEND_COUNT_KEY, Duration.ofSeconds(42));
+
+        assertThat(issue("999999")).isEqualTo(-1);
+        assertThat(redisService.exists(OTP_KEY)).isFalse();
+        assertThat(ttlSeconds(SEND_COUNT_KEY)).isLessThanOrEqualTo(42);
+    }
+
+    @Test
+    void hmacModeHandsOutIncreasingIssueNumbersWithFreshAttemptCounter() {
+        assertThat(issue("")).isEqualTo(1);
+        redisTemplate.opsForHash().put(OTP_KEY, "attempts", 4);
+        redisTemplate.opsForHash().put(OTP_KEY, "used", 1);
+
+        // không có cooldown: gửi lại ngay được, mỗi lần là một số thứ tự mới
+        assertThat(issue("")).isEqualTo(2);
+        assertThat(rawHashField(OTP_KEY, "issue")).isEqualTo("2");
+        assertThat(rawHashField(OTP_KEY, "attempts")).isEqualTo("0");
+        assertThat(rawHashField(OTP_KEY, "used")).isNull();
+        assertThat(rawHashField(OTP_KEY, "code")).isNull();
+        assertThat(redisService.get(SEND_COUNT_KEY)).isEqualTo(2);
+    }
+
+    @Test
+    void hmacModeStillEnforcesQuota() {
+        for (int i = 1; i <= MAX_SEND; i++) {
+            assertThat(issue("")).isEqualTo(i);
+        }
+
+        assertThat(issue("")).isEqualTo(-1);
+        assertThat(rawHashField(OTP_KEY, "issue")).isEqualTo(String.valueOf(MAX_SEND));
+    }
+
+    private long issue(String otp) {
+        Long result = redisService.executeWithRawArgs(script, List.of(OTP_KEY, SEND_COUNT_KEY),
+                otp, OTP_TTL, WINDOW_TTL, MAX_SEND);
+        return result != null ? result : 0;
+    }
+}
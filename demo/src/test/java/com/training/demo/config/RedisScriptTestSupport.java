@@ -0,0 +1,74 @@
+package com.training.demo.config;
+
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.helpers.redis.RedisCommandMetrics;
+import com.training.demo.service.RedisService;
+import com.training.demo.service.impl.RedisServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Chạy script Lua của ứng dụng trên Redis thật (Testcontainers), qua đúng RedisTemplate/serializer của RedisConfig
+ * để kiểm tra cả cách ARGV được serialize (JSON hay raw). Bỏ qua khi máy không có Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+abstract class RedisScriptTestSupport {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    static final RedisConfig REDIS_CONFIG = new RedisConfig();
+
+    static LettuceConnectionFactory connectionFactory;
+    static RedisTemplate<String, Object> redisTemplate;
+    static RedisService redisService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = REDIS_CONFIG.redisTemplate(connectionFactory);
+        redisService = new RedisServiceImpl(redisTemplate, REDIS_CONFIG.redisValueCodecs(new String[0]),
+                new RedisCommandMetrics(new MetricsRegistry(), 0));
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    static long ttlSeconds(String key) {
+        Long ttl = redisTemplate.getExpire(key);
+        return ttl != null ? ttl : -2;
+    }
+
+    /**
+     * Đọc field của hash dạng raw (script ghi raw, không qua serializer JSON)
+     */
+    static String rawHashField(String key, String field) {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hashCommands()
+                .hGet(key.getBytes(StandardCharsets.UTF_8), field.getBytes(StandardCharsets.UTF_8)));
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+}
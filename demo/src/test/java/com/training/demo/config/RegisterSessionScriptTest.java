@@ -0,0 +1,117 @@
+package com.training.demo.config;
+
+import com.training.demo.security.SessionRecord;
+import com.training.demo.security.SessionRegistry;
+import com.training.demo.utils.RedisKeySchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * scripts/register_session.lua qua SessionRegistry#register: dọn phiên hết hạn, loại phiên cũ nhất, dọn field grace mồ côi
+ */
+class RegisterSessionScriptTest extends RedisScriptTestSupport {
+
+    private static final String USERNAME = "alice";
+    private static final String SESSION_KEY = RedisKeySchema.sessionKey(USERNAME);
+    private static final long SESSION_TTL = 3600;
+    private static final int MAX_SESSIONS = 3;
+
+    private SessionRegistry sessionRegistry;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        sessionRegistry = new SessionRegistry(redisService, null, REDIS_CONFIG.registerSessionScript(), MAX_SESSIONS);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void registersSessionAndSetsTtl() {
+        assertThat(register("sid-1", now)).isEmpty();
+
+        assertThat(sessionRegistry.find(USERNAME, "sid-1").orElseThrow()).isEqualTo(record("sid-1", now));
+        assertThat(ttlSeconds(SESSION_KEY)).isBetween(1L, SESSION_TTL);
+    }
+
+    @Test
+    void evictsOldestSessionsBeyondLimit() {
+        register("sid-1", now - 3);
+        register("sid-2", now - 2);
+        register("sid-3", now - 1);
+
+        List<SessionRecord> evicted = register("sid-4", now);
+
+        assertThat(evicted).containsExactly(record("sid-1", now - 3));
+        assertThat(sessionRegistry.find(USERNAME, "sid-1")).isEmpty();
+        assertThat(sessionRegistry.list(USERNAME)).hasSize(MAX_SESSIONS);
+    }
+
+    @Test
+    void expiredSessionsArePrunedWithoutCountingAsEvicted() {
+        register("sid-1", now - 3);
+        sessionRegistry.register(USERNAME, "sid-old", new SessionRecord("a", "r", now - 2, now - 1, now - 10), SESSION_TTL);
+        register("sid-2", now - 2);
+
+        List<SessionRecord> evicted = register("sid-3", now);
+
+        assertThat(evicted).isEmpty();
+        assertThat(redisService.getHash(SESSION_KEY)).doesNotContainKey("sid-old");
+        assertThat(sessionRegistry.list(USERNAME)).hasSize(MAX_SESSIONS);
+    }
+
+    @Test
+    void dropsGraceFieldsOfEvictedAndExpiredRotations() {
+        register("sid-1", now - 3);
+        register("sid-2", now - 2);
+        putGrace("sid-1", now + 10_000);
+        putGrace("sid-2", now - 1);
+        putGrace("sid-gone", now + 10_000);
+        register("sid-3", now - 1);
+
+        register("sid-4", now);
+
+        assertThat(redisService.getHash(SESSION_KEY)).containsOnlyKeys("sid-2", "sid-3", "sid-4");
+    }
+
+    @Test
+    void keepsGraceFieldOfLiveSession() {
+        register("sid-1", now);
+        putGrace("sid-1", now + 10_000);
+
+        register("sid-2", now);
+
+        assertThat(redisService.getHash(SESSION_KEY)).containsKey(SessionRegistry.GRACE_FIELD_PREFIX + "sid-1");
+        assertThat(sessionRegistry.list(USERNAME)).hasSize(2);
+    }
+
+    @Test
+    void removeDropsSessionAndItsGraceField() {
+        register("sid-1", now);
+        putGrace("sid-1", now + 10_000);
+
+        sessionRegistry.remove(USERNAME, "sid-1");
+
+        assertThat(redisService.exists(SESSION_KEY)).isFalse();
+    }
+
+    private List<SessionRecord> register(String sessionId, long createdAt) {
+        return sessionRegistry.register(USERNAME, sessionId, record(sessionId, createdAt), SESSION_TTL);
+    }
+
+    /**
+     * Field grace như rotate_refresh_token.lua ghi sau một lần xoay vòng, hết hạn tại expiresAt
+     */
+    private void putGrace(String sessionId, long expiresAt) {
+        redisTemplate.opsForHash().put(SESSION_KEY, SessionRegistry.GRACE_FIELD_PREFIX + sessionId,
+                "refresh-0|access-token|refresh-token|" + expiresAt);
+    }
+
+    private SessionRecord record(String sessionId, long createdAt) {
+        return new SessionRecord("access-" + sessionId, "refresh-" + sessionId,
+                now + TimeUnit.MINUTES.toMillis(15), now + TimeUnit.HOURS.toMillis(1), createdAt);
+    }
+}
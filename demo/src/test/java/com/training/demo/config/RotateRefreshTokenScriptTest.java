@@ -0,0 +1,142 @@
+package com.training.demo.config;
+
+import com.training.demo.security.SessionRecord;
+import com.training.demo.security.SessionRegistry;
+import com.training.demo.utils.RedisKeySchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * scripts/rotate_refresh_token.lua: xoay vòng, retry trong grace window, phát hiện reuse, phiên đã logout
+ */
+class RotateRefreshTokenScriptTest extends RedisScriptTestSupport {
+
+    private static final String USERNAME = "alice";
+    private static final String SID = "sid-1";
+    private static final String SESSION_KEY = RedisKeySchema.sessionKey(USERNAME);
+    private static final String GRACE_FIELD = SessionRegistry.GRACE_FIELD_PREFIX + SID;
+    private static final long SESSION_TTL = 3600;
+    private static final long GRACE_TTL = 10;
+
+    private final RedisScript<List<Object>> script = REDIS_CONFIG.rotateRefreshTokenScript();
+
+    private SessionRegistry sessionRegistry;
+    private long now;
+
+    @BeforeEach
+    void login() {
+        sessionRegistry = new SessionRegistry(redisService, null, REDIS_CONFIG.registerSessionScript(), 5);
+        now = System.currentTimeMillis();
+        sessionRegistry.register(USERNAME, SID, new SessionRecord("access-0", "refresh-0",
+                now + TimeUnit.MINUTES.toMillis(15), now + TimeUnit.HOURS.toMillis(1), now), SESSION_TTL);
+    }
+
+    @Test
+    void rotatesMatchingRefreshToken() {
+        assertThat(rotate("refresh-0", 1)).containsExactly(1L);
+
+        SessionRecord session = sessionRegistry.find(USERNAME, SID).orElseThrow();
+        assertThat(session.accessJti()).isEqualTo("access-1");
+        assertThat(session.refreshJti()).isEqualTo("refresh-1");
+        assertThat(session.createdAt()).isEqualTo(now);
+        assertThat(redisService.getHash(SESSION_KEY)).containsKey(GRACE_FIELD);
+        assertThat(sessionRegistry.list(USERNAME)).hasSize(1);
+    }
+
+    @Test
+    void retryWithinGraceWindowReturnsTheIssuedPair() {
+        rotate("refresh-0", 1);
+
+        assertThat(rotate("refresh-0", 2)).containsExactly(2L, "access-token-1", "refresh-token-1");
+        // retry không xoay vòng thêm lần nữa
+        assertThat(sessionRegistry.find(USERNAME, SID).orElseThrow().refreshJti()).isEqualTo("refresh-1");
+    }
+
+    @Test
+    void reuseOfOlderRefreshTokenRevokesSession() {
+        rotate("refresh-0", 1);
+        rotate("refresh-1", 2);
+
+        assertThat(rotate("refresh-0", 3)).containsExactly(-1L, "access-2", now + TimeUnit.MINUTES.toMillis(15));
+        assertThat(sessionRegistry.find(USERNAME, SID)).isEmpty();
+        assertThat(redisService.getHash(SESSION_KEY)).doesNotContainKey(GRACE_FIELD);
+        assertThat(rotate("refresh-2", 4)).containsExactly(0L);
+    }
+
+    @Test
+    void unknownSessionIsRejected() {
+        sessionRegistry.removeAll(USERNAME);
+
+        assertThat(rotate("refresh-0", 1)).containsExactly(0L);
+    }
+
+    @Test
+    void replayAfterLogoutIsRejected() {
+        rotate("refresh-0", 1);
+        sessionRegistry.remove(USERNAME, SID);
+
+        assertThat(redisService.getHash(SESSION_KEY)).doesNotContainKey(GRACE_FIELD);
+        assertThat(rotate("refresh-0", 2)).containsExactly(0L);
+    }
+
+    @Test
+    void replayAfterSessionFieldIsGoneIgnoresLeftoverGraceField() {
+        rotate("refresh-0", 1);
+        redisService.deleteHashFields(SESSION_KEY, SID);
+
+        assertThat(rotate("refresh-0", 2)).containsExactly(0L);
+        assertThat(redisService.exists(SESSION_KEY)).isFalse();
+    }
+
+    @Test
+    void retryAfterGraceWindowIsTreatedAsReuse() {
+        rotate("refresh-0", 1);
+
+        // grace hết hạn theo thời điểm ghi trong field, không theo TTL của hash
+        assertThat(rotateAt("refresh-0", 2, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(GRACE_TTL + 1)))
+                .containsExactly(-1L, "access-1", now + TimeUnit.MINUTES.toMillis(15));
+        assertThat(sessionRegistry.find(USERNAME, SID)).isEmpty();
+    }
+
+    @Test
+    void logoutAllDropsSessionsAndGraceFieldsWithOneDelete() {
+        rotate("refresh-0", 1);
+
+        sessionRegistry.removeAll(USERNAME);
+
+        assertThat(redisService.exists(SESSION_KEY)).isFalse();
+        assertThat(rotate("refresh-0", 2)).containsExactly(0L);
+    }
+
+    @Test
+    void expiredSessionIsRejectedAndDropped() {
+        sessionRegistry.register(USERNAME, SID, new SessionRecord("access-0", "refresh-0",
+                now - 2, now - 1, now - 3), SESSION_TTL);
+
+        assertThat(rotate("refresh-0", 1)).containsExactly(0L);
+        assertThat(redisService.getHash(SESSION_KEY)).doesNotContainKey(SID);
+    }
+
+    /**
+     * Gọi script với đúng thứ tự ARGV của AuthServiceImpl#refreshToken, jti/token mới đánh số theo lần xoay vòng
+     */
+    private List<Object> rotate(String presentedRefreshJti, int generation) {
+        return rotateAt(presentedRefreshJti, generation, System.currentTimeMillis());
+    }
+
+    private List<Object> rotateAt(String presentedRefreshJti, int generation, long at) {
+        return redisService.execute(script, List.of(SESSION_KEY),
+                SID, presentedRefreshJti, "access-" + generation, "refresh-" + generation,
+                now + TimeUnit.MINUTES.toMillis(15),
+                now + TimeUnit.HOURS.toMillis(1),
+                SESSION_TTL,
+                GRACE_TTL,
+                "access-token-" + generation, "refresh-token-" + generation,
+                at);
+    }
+}
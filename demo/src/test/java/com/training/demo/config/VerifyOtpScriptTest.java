@@ -0,0 +1,119 @@
+package com.training.demo.config;
+
+import com.training.demo.utils.RedisKeySchema;
+import com.training.demo.utils.enums.OtpType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * scripts/verify_otp.lua: so mã, đếm lần sai, khóa sau N lần sai, dùng một lần (cả hai chế độ STORED/HMAC)
+ */
+class VerifyOtpScriptTest extends RedisScriptTestSupport {
+
+    private static final String EMAIL = "user@example.com";
+    private static final OtpType TYPE = OtpType.VERIFY_EMAIL;
+    private static final String OTP_KEY = RedisKeySchema.otpKey(EMAIL, TYPE);
+    private static final String SEND_COUNT_KEY = RedisKeySchema.otpSendCountKey(EMAIL, TYPE);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RedisScript<Long> issueScript = REDIS_CONFIG.issueOtpScript();
+    private final RedisScript<List<Object>> verifyScript = REDIS_CONFIG.verifyOtpScript();
+
+    @Test
+    void storedOtpIsSingleUse() {
+        issue("123456");
+
+        assertThat(verifyStored("123456")).containsExactly(1L, (long) MAX_ATTEMPTS);
+        assertThat(redisService.exists(OTP_KEY)).isFalse();
+        assertThat(verifyStored("123456")).containsExactly(-1L, 0L);
+    }
+
+    @Test
+    void storedOtpCountsWrongGuessesAndIsDroppedAfterLimit() {
+        issue("123456");
+
+        assertThat(verifyStored("000000")).containsExactly(0L, 2L);
+        assertThat(verifyStored("000001")).containsExactly(0L, 1L);
+        assertThat(verifyStored("000002")).containsExactly(-2L, 0L);
+
+        // mã đã bị hủy: nhập đúng cũng không còn tác dụng
+        assertThat(redisService.exists(OTP_KEY)).isFalse();
+        assertThat(verifyStored("123456")).containsExactly(-1L, 0L);
+    }
+
+    @Test
+    void storedOtpRemainingAttemptsSurviveCorrectGuessAfterFailures() {
+        issue("123456");
+        verifyStored("000000");
+
+        assertThat(verifyStored("123456")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void missingOtpIsNotFound() {
+        assertThat(verifyStored("123456")).containsExactly(-1L, 0L);
+        assertThat(verifyHmac(true, 1)).containsExactly(-1L, 0L);
+    }
+
+    @Test
+    void hmacIssueIsSingleUse() {
+        long issue = issue("");
+
+        assertThat(verifyHmac(true, issue)).containsExactly(1L, (long) MAX_ATTEMPTS);
+        assertThat(rawHashField(OTP_KEY, "used")).isEqualTo("1");
+        assertThat(verifyHmac(true, issue)).containsExactly(-1L, 0L);
+    }
+
+    @Test
+    void hmacResendAfterUseGivesUsableIssue() {
+        long first = issue("");
+        verifyHmac(true, first);
+
+        long second = issue("");
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(verifyHmac(true, second)).containsExactly(1L, (long) MAX_ATTEMPTS);
+    }
+
+    @Test
+    void hmacMatchAgainstSupersededIssueIsRejected() {
+        long first = issue("");
+        issue("");
+
+        assertThat(verifyHmac(true, first)).containsExactly(-1L, 0L);
+    }
+
+    @Test
+    void hmacLockoutIsScopedToTheIssue() {
+        long first = issue("");
+        assertThat(verifyHmac(false, first)).containsExactly(0L, 2L);
+        assertThat(verifyHmac(false, first)).containsExactly(0L, 1L);
+        assertThat(verifyHmac(false, first)).containsExactly(-2L, 0L);
+
+        // bị khóa: mã đúng của lần cấp này cũng bị từ chối, hash vẫn còn để giữ số thứ tự lần cấp
+        assertThat(verifyHmac(true, first)).containsExactly(-2L, 0L);
+        assertThat(redisService.exists(OTP_KEY)).isTrue();
+
+        // gửi lại bắt đầu bộ đếm mới
+        long second = issue("");
+        assertThat(verifyHmac(true, second)).containsExactly(1L, (long) MAX_ATTEMPTS);
+    }
+
+    private long issue(String otp) {
+        Long result = redisService.executeWithRawArgs(issueScript, List.of(OTP_KEY, SEND_COUNT_KEY),
+                otp, 600, 600, 10);
+        return result != null ? result : 0;
+    }
+
+    private List<Object> verifyStored(String input) {
+        return redisService.executeWithRawArgs(verifyScript, List.of(OTP_KEY), input, MAX_ATTEMPTS, "", "");
+    }
+
+    private List<Object> verifyHmac(boolean matched, long issue) {
+        return redisService.executeWithRawArgs(verifyScript, List.of(OTP_KEY),
+                "", MAX_ATTEMPTS, matched ? "1" : "0", String.valueOf(issue));
+    }
+}
@@ -0,0 +1,113 @@
+package com.training.demo.helpers;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BloomFilter: không có false negative, tỉ lệ false positive quanh fpp, serialize/deserialize qua toBytes/fromBytes
+ */
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void addedValuesAreAlwaysReported() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        IntStream.range(0, INSERTIONS).forEach(i -> filter.put("user-" + i));
+
+        assertThat(IntStream.range(0, INSERTIONS).allMatch(i -> filter.mightContain("user-" + i))).isTrue();
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+
+        assertThat(filter.mightContain("alice")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void hashesEveryTailLength() {
+        // độ dài 0..16 byte đi qua mọi nhánh của phần đuôi MurmurHash64A
+        BloomFilter filter = new BloomFilter(100, FPP);
+        String value = "abcdefghijklmnop";
+        for (int length = 0; length <= value.length(); length++) {
+            filter.put(value.substring(0, length));
+        }
+
+        for (int length = 0; length <= value.length(); length++) {
+            assertThat(filter.mightContain(value.substring(0, length))).isTrue();
+        }
+        assertThat(filter.mightContain("abcdefgh-not-added")).isFalse();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredFpp() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        IntStream.range(0, INSERTIONS).forEach(i -> filter.put("user-" + i));
+
+        long falsePositives = IntStream.range(0, INSERTIONS)
+                .filter(i -> filter.mightContain("absent-" + i))
+                .count();
+
+        assertThat((double) falsePositives / INSERTIONS).isLessThan(FPP * 3);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        IntStream.range(0, 1_000).forEach(i -> filter.put("user-" + i + "@example.com"));
+
+        byte[] bytes = filter.toBytes();
+        BloomFilter copy = BloomFilter.fromBytes(bytes);
+
+        assertThat(copy.toBytes()).isEqualTo(bytes);
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> copy.mightContain("user-" + i + "@example.com"))).isTrue();
+        assertThat(IntStream.range(0, 1_000).filter(i -> copy.mightContain("absent-" + i)).count())
+                .isEqualTo(IntStream.range(0, 1_000).filter(i -> filter.mightContain("absent-" + i)).count());
+    }
+
+    @Test
+    void rejectsTruncatedSnapshot() {
+        byte[] bytes = new BloomFilter(INSERTIONS, FPP).toBytes();
+
+        assertThatThrownBy(() -> BloomFilter.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.fromBytes(Arrays.copyOf(bytes, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.fromBytes(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInconsistentHeader() {
+        assertThatThrownBy(() -> BloomFilter.fromBytes(snapshot(100, 3, 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.fromBytes(snapshot(128, 0, 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.fromBytes(snapshot(-64, 3, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.fromBytes(snapshot(128, 3, 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new BloomFilter(0, FPP)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(INSERTIONS, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(INSERTIONS, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] snapshot(long bitSize, int numHashes, int words) {
+        return ByteBuffer.allocate(Long.BYTES + Integer.BYTES + words * Long.BYTES)
+                .putLong(bitSize)
+                .putInt(numHashes)
+                .array();
+    }
+}
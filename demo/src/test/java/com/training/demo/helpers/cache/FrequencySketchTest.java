@@ -0,0 +1,74 @@
+package com.training.demo.helpers.cache;
+
+import org.junit.jupiter.api.Test;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * FrequencySketch: ước lượng không thấp hơn tần suất thật, counter bão hòa ở 15, tần suất cũ phai dần sau mỗi mẫu
+ */
+class FrequencySketchTest {
+
+    @Test
+    void unseenKeyHasZeroFrequency() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+
+        assertThat(sketch.frequency("never-seen")).isZero();
+    }
+
+    @Test
+    void countsSaturateAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        IntStream.range(0, 40).forEach(i -> sketch.increment("hot"));
+
+        assertThat(sketch.frequency("hot")).isEqualTo(15);
+    }
+
+    @Test
+    void neverUnderestimatesWithinASample() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int key = 0; key < 200; key++) {
+            for (int i = 0; i <= key % 10; i++) {
+                sketch.increment("key-" + key);
+            }
+        }
+
+        for (int key = 0; key < 200; key++) {
+            assertThat(sketch.frequency("key-" + key)).isGreaterThanOrEqualTo(key % 10 + 1);
+        }
+    }
+
+    @Test
+    void separatesHotKeysFromOneHitKeysAtFullLoad() {
+        int maxSize = 1000;
+        FrequencySketch sketch = new FrequencySketch(maxSize);
+        // tải thực tế: số lần tăng xấp xỉ cỡ mẫu, phần lớn là key chỉ truy cập một lần
+        for (int round = 0; round < 8; round++) {
+            for (int hot = 0; hot < 100; hot++) {
+                sketch.increment("hot-" + hot);
+            }
+            for (int cold = 0; cold < 1000; cold++) {
+                sketch.increment("cold-" + round + "-" + cold);
+            }
+        }
+
+        long hotAboveCold = IntStream.range(0, 100)
+                .filter(hot -> sketch.frequency("hot-" + hot) > sketch.frequency("cold-7-" + hot))
+                .count();
+        assertThat(hotAboveCold).isGreaterThanOrEqualTo(95L);
+    }
+
+    @Test
+    void agesOldCountsAfterSample() {
+        int maxSize = 64;
+        FrequencySketch sketch = new FrequencySketch(maxSize);
+        IntStream.range(0, 15).forEach(i -> sketch.increment("old-hot"));
+        assertThat(sketch.frequency("old-hot")).isEqualTo(15);
+
+        // đủ nhiều lần tăng để vượt cỡ mẫu (10 x maxSize) ít nhất một lần
+        IntStream.range(0, 20 * maxSize).forEach(i -> sketch.increment("other-" + i));
+
+        assertThat(sketch.frequency("old-hot")).isLessThan(15);
+    }
+}
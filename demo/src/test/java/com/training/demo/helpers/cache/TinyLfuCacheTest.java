@@ -0,0 +1,118 @@
+package com.training.demo.helpers.cache;
+
+import org.junit.jupiter.api.Test;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * TinyLfuCache: giới hạn kích thước, admission theo tần suất, hết hạn theo từng entry
+ */
+class TinyLfuCacheTest {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @Test
+    void returnsStoredValue() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("a", "1", NEVER);
+
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void overwritesExistingKey() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        IntStream.range(0, 10).forEach(i -> cache.put("k" + i, "v", NEVER));
+        cache.put("k0", "new", NEVER);
+        cache.put("k9", "new", NEVER);
+
+        assertThat(cache.get("k0")).isEqualTo("new");
+        assertThat(cache.get("k9")).isEqualTo("new");
+        assertThat(cache.size()).isEqualTo(10);
+    }
+
+    @Test
+    void expiredEntryIsMissedAndDropped() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("expired", "1", System.currentTimeMillis() - 1);
+        cache.put("alive", "2", System.currentTimeMillis() + 60_000);
+
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.get("alive")).isEqualTo("2");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void neverGrowsBeyondMaxSize() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+        IntStream.range(0, 10_000).forEach(i -> cache.put(i, i, NEVER));
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.evictionCount()).isGreaterThanOrEqualTo(10_000L - 100);
+    }
+
+    @Test
+    void frequentKeysSurviveScanOfOneHitKeys() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        for (int hot = 0; hot < 50; hot++) {
+            cache.put("hot-" + hot, "v", NEVER);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                cache.get("hot-" + hot);
+            }
+        }
+
+        // quét gấp 6 lần dung lượng bằng key chỉ dùng một lần (như enumeration), theo mẫu get-miss-rồi-put của cache;
+        // LRU thuần sẽ mất hết key nóng. Lượt quét nằm trong một mẫu của sketch (10 x maxSize lần tăng)
+        for (int cold = 0; cold < 600; cold++) {
+            String key = "cold-" + cold;
+            if (cache.get(key) == null) {
+                cache.put(key, "v", NEVER);
+            }
+        }
+
+        long retained = IntStream.range(0, 50).filter(hot -> cache.get("hot-" + hot) != null).count();
+        assertThat(retained).isGreaterThanOrEqualTo(45L);
+    }
+
+    @Test
+    void oneHitCandidateIsNotAdmittedOverFrequentVictim() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        IntStream.range(0, 100).forEach(i -> {
+            cache.put("hot-" + i, "v", NEVER);
+            cache.get("hot-" + i);
+            cache.get("hot-" + i);
+        });
+
+        cache.put("newcomer", "v", NEVER);
+        cache.put("pusher", "v", NEVER);
+
+        assertThat(cache.get("newcomer")).isNull();
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void invalidateRemovesEntries() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("a", "1", NEVER);
+        cache.put("b", "2", NEVER);
+
+        cache.invalidate("a");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("2");
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveMaxSize() {
+        assertThatThrownBy(() -> new TinyLfuCache<String, String>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.training.demo.helpers.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * TwoTierCache: đọc L1 rồi L2, get(key, loader) chỉ nạp một lần mỗi key khi nhiều thread cùng miss
+ */
+class TwoTierCacheTest {
+
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("test");
+    private final List<String> published = new ArrayList<>();
+    private final TwoTierCache cache = new TwoTierCache("test", 100, 60_000, remote, this::publish);
+
+    @Test
+    void concurrentMissesLoadOncePerKey() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(50);
+                        return "value";
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(remote.get("key").get()).isEqualTo("value");
+    }
+
+    @Test
+    void loadsOfDifferentKeysDoNotWaitForEachOther() throws Exception {
+        CountDownLatch slowLoadStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowLoad = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = executor.submit(() -> cache.get("slow", () -> {
+                slowLoadStarted.countDown();
+                releaseSlowLoad.await();
+                return "slow-value";
+            }));
+            assertThat(slowLoadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(cache.get("fast", () -> "fast-value")).isEqualTo("fast-value");
+
+            releaseSlowLoad.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow-value");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void loaderFailureIsWrappedAndNotCached() {
+        assertThatThrownBy(() -> cache.get("key", () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class).hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    void nullFromLoaderIsCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("missing", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        Object second = cache.get("missing", () -> {
+            loads.incrementAndGet();
+            return "late";
+        });
+
+        assertThat(second).isNull();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void readsThroughToRemoteAndFillsLocal() {
+        remote.put(42L, "from-remote");
+
+        assertThat(cache.get(42L).get()).isEqualTo("from-remote");
+        assertThat(cache.getLocal().get("42")).isEqualTo("from-remote");
+    }
+
+    @Test
+    void evictLocalKeepsRemoteEntry() {
+        cache.put("key", "value");
+
+        cache.evictLocal("key");
+
+        assertThat(cache.getLocal().get("key")).isNull();
+        assertThat(cache.get("key").get()).isEqualTo("value");
+        assertThat(published).containsExactly("key");
+    }
+
+    private synchronized void publish(String key) {
+        published.add(key);
+    }
+}
@@ -0,0 +1,124 @@
+package com.training.demo.helpers.redis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CompactRedisSerializer: tag + zigzag varint cho số nguyên, UTF-8 cho chuỗi, fallback JSON cho kiểu khác
+ */
+class CompactRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json);
+
+    @ParameterizedTest
+    @MethodSource("longs")
+    void roundTripsLongs(Long value) {
+        Object decoded = serializer.deserialize(serializer.serialize(value));
+
+        assertThat(decoded).isInstanceOf(Long.class).isEqualTo(value);
+    }
+
+    @ParameterizedTest
+    @MethodSource("integers")
+    void roundTripsIntegers(Integer value) {
+        Object decoded = serializer.deserialize(serializer.serialize(value));
+
+        assertThat(decoded).isInstanceOf(Integer.class).isEqualTo(value);
+    }
+
+    @ParameterizedTest
+    @MethodSource("strings")
+    void roundTripsStrings(String value) {
+        assertThat(serializer.deserialize(serializer.serialize(value))).isEqualTo(value);
+    }
+
+    @Test
+    void encodesSmallMagnitudesInOneByteWithZigzag() {
+        // zigzag: 0 -> 0, -1 -> 1, 1 -> 2, -64 -> 127, 64 -> 128 (hai byte)
+        assertThat(serializer.serialize(0L)).containsExactly((byte) 0x03, (byte) 0x00);
+        assertThat(serializer.serialize(-1L)).containsExactly((byte) 0x03, (byte) 0x01);
+        assertThat(serializer.serialize(1L)).containsExactly((byte) 0x03, (byte) 0x02);
+        assertThat(serializer.serialize(-64L)).containsExactly((byte) 0x03, (byte) 0x7F);
+        assertThat(serializer.serialize(64L)).containsExactly((byte) 0x03, (byte) 0x80, (byte) 0x01);
+        assertThat(serializer.serialize(-1)).containsExactly((byte) 0x02, (byte) 0x01);
+    }
+
+    @Test
+    void extremeLongsUseTenVarintBytes() {
+        assertThat(serializer.serialize(Long.MIN_VALUE)).hasSize(11);
+        assertThat(serializer.serialize(Long.MAX_VALUE)).hasSize(11);
+        assertThat(serializer.serialize(Integer.MIN_VALUE)).hasSize(6);
+    }
+
+    @Test
+    void stringIsTagPlusUtf8() {
+        assertThat(serializer.serialize("ab")).containsExactly((byte) 0x01, (byte) 'a', (byte) 'b');
+        assertThat(serializer.serialize("user@example.com")).hasSize(json.serialize("user@example.com").length - 1);
+    }
+
+    @Test
+    void otherTypesFallBackToJson() {
+        List<String> value = new ArrayList<>(List.of("a", "b"));
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes).isEqualTo(json.serialize(value));
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+    }
+
+    @Test
+    void readsValuesWrittenAsJsonBeforeSwitchingCodec() {
+        assertThat(serializer.deserialize(json.serialize("user@example.com"))).isEqualTo("user@example.com");
+        assertThat(serializer.deserialize(json.serialize(42L))).isEqualTo(json.deserialize(json.serialize(42L)));
+    }
+
+    @Test
+    void nullAndEmptyAreNull() {
+        assertThat(serializer.serialize(null)).isNull();
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedVarint() {
+        assertThatThrownBy(() -> serializer.deserialize(new byte[]{0x03, (byte) 0x80}))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[]{0x02}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsOverlongVarint() {
+        byte[] bytes = new byte[12];
+        bytes[0] = 0x03;
+        for (int i = 1; i < bytes.length; i++) {
+            bytes[i] = (byte) 0x80;
+        }
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    static Stream<Long> longs() {
+        return Stream.of(0L, 1L, -1L, 63L, 64L, -64L, -65L, 127L, 128L, 300L, -300L,
+                (long) Integer.MAX_VALUE, (long) Integer.MIN_VALUE, System.currentTimeMillis(),
+                Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE - 1);
+    }
+
+    static Stream<Integer> integers() {
+        return Stream.of(0, 1, -1, 64, -65, 1 << 20, -(1 << 20), Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    static Stream<String> strings() {
+        return Stream.of("", "a", "user@example.com", "Nguyễn Văn A", "emoji 😀", "\u0001leading-tag-byte");
+    }
+}
@@ -0,0 +1,210 @@
+package com.training.demo.security;
+
+import com.training.demo.config.OtpProperties;
+import com.training.demo.utils.enums.OtpMode;
+import com.training.demo.utils.enums.OtpType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * HmacOtpCodec: mã OTP theo cửa sổ + số thứ tự lần cấp, verify key ký HMAC
+ */
+class HmacOtpCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String EMAIL = "user@example.com";
+    private static final OtpType TYPE = OtpType.VERIFY_EMAIL;
+
+    private OtpProperties properties;
+    private HmacOtpCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OtpProperties();
+        properties.setMode(OtpMode.HMAC);
+        properties.setSecret(Base64.getEncoder().encodeToString(SECRET));
+        properties.setExpiryMinutes(5);
+        properties.setVerifyKeyExpiryMinutes(10);
+        properties.setOtpLength(6);
+        codec = new HmacOtpCodec(properties);
+        codec.init();
+    }
+
+    @Test
+    void codeIsDeterministicAndHasConfiguredLength() {
+        long window = codec.currentWindow();
+
+        String code = codec.code(EMAIL, TYPE, window, 1);
+
+        assertThat(code).matches("\\d{6}");
+        assertThat(codec.code(EMAIL, TYPE, window, 1)).isEqualTo(code);
+    }
+
+    @Test
+    void eachIssueGetsItsOwnCode() {
+        long window = codec.currentWindow();
+        Set<String> codes = new HashSet<>();
+        for (long issue = 1; issue <= 20; issue++) {
+            codes.add(codec.code(EMAIL, TYPE, window, issue));
+        }
+
+        // 20 mã 6 chữ số: trùng nhau gần như không thể, một vài lần trùng vẫn chấp nhận được
+        assertThat(codes.size()).isGreaterThan(18);
+        assertThat(codec.code(EMAIL, TYPE, window, 1)).isNotEqualTo(codec.code(EMAIL, TYPE, window, 2));
+    }
+
+    @Test
+    void codeDependsOnEmailAndType() {
+        long window = codec.currentWindow();
+        String code = codec.code(EMAIL, TYPE, window, 1);
+
+        assertThat(codec.code("other@example.com", TYPE, window, 1)).isNotEqualTo(code);
+        assertThat(codec.code(EMAIL, OtpType.RESET_PASSWORD, window, 1)).isNotEqualTo(code);
+    }
+
+    @Test
+    void matchesCurrentAndPreviousWindowOnly() {
+        long current = codec.currentWindow();
+
+        assertThat(codec.match(EMAIL, TYPE, 1, codec.code(EMAIL, TYPE, current, 1)).isPresent()).isTrue();
+        // mã cấp cuối cửa sổ trước vẫn còn hiệu lực
+        assertThat(codec.match(EMAIL, TYPE, 1, codec.code(EMAIL, TYPE, current - 1, 1)).getAsLong())
+                .isEqualTo(current - 1);
+        assertThat(codec.match(EMAIL, TYPE, 1, codec.code(EMAIL, TYPE, current - 2, 1)).isPresent()).isFalse();
+    }
+
+    @Test
+    void codeOfAnotherIssueDoesNotMatch() {
+        long current = codec.currentWindow();
+        String firstIssueCode = codec.code(EMAIL, TYPE, current, 1);
+
+        // lần cấp mới hủy mã của lần cấp trước dù vẫn cùng cửa sổ
+        assertThat(codec.match(EMAIL, TYPE, 2, firstIssueCode).isPresent()).isFalse();
+        assertThat(codec.match(EMAIL, TYPE, 1, null).isPresent()).isFalse();
+        assertThat(codec.match(EMAIL, TYPE, 1, "").isPresent()).isFalse();
+    }
+
+    @Test
+    void issuedVerifyKeyParsesBack() {
+        String token = codec.issueVerifyKey(EMAIL);
+
+        HmacOtpCodec.VerifyKeyClaims claims = codec.parseVerifyKey(token).orElseThrow();
+
+        assertThat(HmacOtpCodec.isSignedVerifyKey(token)).isTrue();
+        assertThat(claims.email()).isEqualTo(EMAIL);
+        assertThat(claims.expiresAt()).isGreaterThan(System.currentTimeMillis());
+        assertThat(claims.jti()).isNotEmpty();
+        assertThat(codec.parseVerifyKey(codec.issueVerifyKey(EMAIL)).orElseThrow().jti()).isNotEqualTo(claims.jti());
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = codec.issueVerifyKey(EMAIL);
+        int dot = token.indexOf('.');
+        byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        signature[0] ^= 1;
+
+        String tampered = token.substring(0, dot + 1) + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+
+        assertThat(codec.parseVerifyKey(tampered)).isEmpty();
+        assertThat(codec.parseVerifyKey(token.substring(0, dot + 1))).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = codec.issueVerifyKey(EMAIL);
+        String signature = token.substring(token.indexOf('.') + 1);
+        String forged = encode("attacker@example.com\n" + (System.currentTimeMillis() + 60_000) + "\njti");
+
+        assertThat(codec.parseVerifyKey(forged + "." + signature)).isEmpty();
+    }
+
+    @Test
+    void rejectsKeySignedWithAnotherSecret() {
+        properties.setSecret(Base64.getEncoder().encodeToString("another-secret-another-secret-00".getBytes(StandardCharsets.UTF_8)));
+        HmacOtpCodec other = new HmacOtpCodec(properties);
+        other.init();
+
+        assertThat(codec.parseVerifyKey(other.issueVerifyKey(EMAIL))).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredKey() {
+        String expired = signed(EMAIL + "\n" + (System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(1)) + "\njti");
+
+        assertThat(codec.parseVerifyKey(expired)).isEmpty();
+    }
+
+    @Test
+    void rejectsWrongNumberOfPayloadParts() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        assertThat(codec.parseVerifyKey(signed(EMAIL + "\n" + expiresAt))).isEmpty();
+        assertThat(codec.parseVerifyKey(signed(EMAIL + "\n" + expiresAt + "\njti\nextra"))).isEmpty();
+        assertThat(codec.parseVerifyKey(signed(EMAIL + "\n" + expiresAt + "\njti")).isPresent()).isTrue();
+    }
+
+    @Test
+    void rejectsNonNumericExpiry() {
+        assertThat(codec.parseVerifyKey(signed(EMAIL + "\nsoon\njti"))).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String token = codec.issueVerifyKey(EMAIL);
+        String payload = token.substring(0, token.indexOf('.'));
+
+        assertThat(codec.parseVerifyKey("not-base64$." + token.substring(token.indexOf('.') + 1))).isEmpty();
+        assertThat(codec.parseVerifyKey(payload + ".%%%")).isEmpty();
+        assertThat(codec.parseVerifyKey("." + payload)).isEmpty();
+        assertThat(codec.parseVerifyKey("no-dot")).isEmpty();
+        assertThat(codec.parseVerifyKey("")).isEmpty();
+        assertThat(HmacOtpCodec.isSignedVerifyKey("8f14e45f-ceea-467a-9575-6a4bbd1b6d3c")).isFalse();
+    }
+
+    @Test
+    void parsesSignedKeysAfterSwitchingToStoredMode() {
+        String token = codec.issueVerifyKey(EMAIL);
+        properties.setMode(OtpMode.STORED);
+        HmacOtpCodec stored = new HmacOtpCodec(properties);
+        stored.init();
+
+        assertThat(stored.isEnabled()).isFalse();
+        assertThat(stored.parseVerifyKey(token).isPresent()).isTrue();
+    }
+
+    @Test
+    void refusesToStartWithoutSecretInHmacMode() {
+        properties.setSecret(null);
+        HmacOtpCodec unconfigured = new HmacOtpCodec(properties);
+
+        assertThatThrownBy(unconfigured::init).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static String signed(String payload) {
+        String encoded = encode(payload);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+            byte[] signature = Arrays.copyOf(mac.doFinal(("vk|" + encoded).getBytes(StandardCharsets.UTF_8)), 16);
+            return encoded + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
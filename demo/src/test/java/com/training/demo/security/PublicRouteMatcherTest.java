@@ -0,0 +1,97 @@
+package com.training.demo.security;
+
+import com.training.demo.config.SecurityConfig;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.util.AntPathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PublicRouteMatcher phải trả cùng kết quả với AntPathMatcher trên SecurityConfig.PUBLIC_URL
+ */
+class PublicRouteMatcherTest {
+
+    private static final PublicRouteMatcher MATCHER = PublicRouteMatcher.compile(SecurityConfig.PUBLIC_URL);
+    private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    @ParameterizedTest
+    @MethodSource("paths")
+    void agreesWithAntPathMatcher(String path) {
+        boolean expected = Arrays.stream(SecurityConfig.PUBLIC_URL).anyMatch(pattern -> ANT_PATH_MATCHER.match(pattern, path));
+
+        assertThat(MATCHER.matches(path)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("mixedPatternPaths")
+    void agreesWithAntPathMatcherOnWildcardPatterns(String path) {
+        String[] patterns = {"/api/users/*/roles", "/files/**/*.png", "/api/{version}/ping", "/static/**", "/health"};
+        PublicRouteMatcher matcher = PublicRouteMatcher.compile(patterns);
+        boolean expected = Arrays.stream(patterns).anyMatch(pattern -> ANT_PATH_MATCHER.match(pattern, path));
+
+        assertThat(matcher.matches(path)).isEqualTo(expected);
+    }
+
+    static Stream<String> paths() {
+        List<String> paths = new ArrayList<>();
+        for (String pattern : SecurityConfig.PUBLIC_URL) {
+            String base = pattern.replace("/**", "");
+            paths.add(pattern.replace("**", "index.html"));
+            paths.add(base);
+            paths.add(base + "/");
+            paths.add(base + "X");
+            paths.add(base + "/nested/deeper");
+            paths.add(base.toUpperCase());
+        }
+        paths.addAll(List.of(
+                "/swagger-ui",
+                "/swagger-uiX",
+                "/swagger-ui/",
+                "/swagger-ui/index.html",
+                "/v3/api-docs",
+                "/v3/api-docs.yaml",
+                "/api/auth/login/",
+                "/api/auth/login/extra",
+                "/api/auth/loginX",
+                "/api/auth",
+                "/api/auth/",
+                "/api/users",
+                "/api/users/1",
+                "/webjars",
+                "/webjarsX/a.js",
+                "//",
+                "//api/auth/login",
+                "/api//auth/login",
+                "/api/auth/login//",
+                "/swagger-ui//index.html",
+                ""
+        ));
+        return paths.stream();
+    }
+
+    static Stream<String> mixedPatternPaths() {
+        return Stream.of(
+                "/api/users/1/roles",
+                "/api/users/1/2/roles",
+                "/api/users//roles",
+                "//health",
+                "/files/a.png",
+                "/files/a/b/c.png",
+                "/files/a/b/c.jpg",
+                "/api/v1/ping",
+                "/api/v1/v2/ping",
+                "/static",
+                "/static/",
+                "/staticX",
+                "/static/css/app.css",
+                "/health",
+                "/health/",
+                "/healthz"
+        );
+    }
+}
@@ -0,0 +1,132 @@
+package com.training.demo.service.impl;
+
+import com.training.demo.config.MailPipelineProperties;
+import com.training.demo.dto.response.Email.EmailDTO;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.service.MailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.TemplateEngine;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MailServiceImpl: giữ chỗ trong queue (reserveSlot), từ chối khi queue đầy, gửi nốt hoặc báo lỗi mail còn chờ khi tắt
+ */
+class MailServiceImplTest {
+
+    private static final int QUEUE_CAPACITY = 2;
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    // không chạy worker nào (không gọi start()): mail nằm lại trong queue
+    private final MailServiceImpl mailService = new MailServiceImpl(new JavaMailSenderImpl(), new TemplateEngine(),
+            command -> { }, properties(), metricsRegistry);
+
+    @Test
+    void reserveSlotFailsOnceQueueIsFull() {
+        MailService.QueueSlot first = mailService.reserveSlot();
+        mailService.sendEmailAsync(email());
+
+        assertThatThrownBy(mailService::reserveSlot).isInstanceOf(MailSendException.class);
+        assertThatThrownBy(() -> mailService.sendEmailAsync(email())).isInstanceOf(MailSendException.class);
+
+        // chỗ đã giữ vẫn gửi được dù queue đã đầy
+        assertThatCode(() -> first.send(email())).doesNotThrowAnyException();
+    }
+
+    @Test
+    void closingUnusedSlotGivesPlaceBack() {
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            mailService.reserveSlot().close();
+        }
+
+        try (MailService.QueueSlot slot = mailService.reserveSlot()) {
+            slot.send(email());
+        }
+        mailService.sendEmailAsync(email());
+
+        assertThatThrownBy(mailService::reserveSlot).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void closingSentSlotKeepsPlaceTaken() {
+        MailService.QueueSlot slot = mailService.reserveSlot();
+        slot.send(email());
+        slot.close();
+        slot.close();
+
+        mailService.sendEmailAsync(email());
+
+        assertThatThrownBy(mailService::reserveSlot).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void slotSendsOnlyOnce() {
+        try (MailService.QueueSlot slot = mailService.reserveSlot()) {
+            slot.send(email());
+
+            assertThatThrownBy(() -> slot.send(email())).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void shutdownReportsMailLeftInQueueAndRejectsNewMail() {
+        mailService.sendEmailAsync(email());
+        mailService.sendEmailAsync(email());
+
+        mailService.shutdown();
+
+        assertThat(metricsRegistry.counter("mail.undelivered").sum()).isEqualTo(2L);
+        assertThatThrownBy(mailService::reserveSlot).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void shutdownRetriesBackedOffMailWithoutWaitingForBackoff() throws InterruptedException {
+        // SMTP không nghe ở cổng 1: mọi lần gửi lỗi ngay, retry đầu tiên phải chờ backoff 60s nếu không tắt
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(1);
+        MailPipelineProperties properties = properties();
+        properties.setWorkers(1);
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoffMs(60_000);
+        properties.setMaxBackoffMs(60_000);
+        properties.setShutdownTimeoutMs(10_000);
+        MailServiceImpl pipeline = new MailServiceImpl(mailSender, new TemplateEngine(),
+                command -> new Thread(command, "mail-worker-test").start(), properties, metricsRegistry);
+        pipeline.start();
+
+        pipeline.sendEmailAsync(email());
+        long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (metricsRegistry.counter("mail.retried").sum() == 0 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        long startedAt = System.currentTimeMillis();
+        pipeline.shutdown();
+
+        assertThat(System.currentTimeMillis() - startedAt).isLessThan(properties.getShutdownTimeoutMs());
+        assertThat(metricsRegistry.counter("mail.failed").sum()).isEqualTo(1L);
+        assertThat(metricsRegistry.counter("mail.undelivered").sum()).isEqualTo(0L);
+    }
+
+    private static MailPipelineProperties properties() {
+        MailPipelineProperties properties = new MailPipelineProperties();
+        properties.setQueueCapacity(QUEUE_CAPACITY);
+        properties.setShutdownTimeoutMs(100);
+        return properties;
+    }
+
+    private static EmailDTO email() {
+        return EmailDTO.builder()
+                .from("noreply@example.com")
+                .to(List.of("user@example.com"))
+                .subject("subject")
+                .textContent("content")
+                .build();
+    }
+}
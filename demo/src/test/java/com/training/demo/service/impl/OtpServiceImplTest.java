@@ -0,0 +1,110 @@
+package com.training.demo.service.impl;
+
+import com.training.demo.config.MailPipelineProperties;
+import com.training.demo.config.OtpProperties;
+import com.training.demo.dto.request.Otp.SendOtpRequest;
+import com.training.demo.entity.User;
+import com.training.demo.exception.NotFoundException;
+import com.training.demo.exception.TooManyRequestsException;
+import com.training.demo.helpers.metrics.MetricsRegistry;
+import com.training.demo.repository.UserRepository;
+import com.training.demo.security.HmacOtpCodec;
+import com.training.demo.security.UserExistenceFilter;
+import com.training.demo.service.RedisService;
+import com.training.demo.utils.enums.OtpType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.TemplateEngine;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * OtpServiceImpl#sendOtp: queue mail đầy thì trả 429 trước khi script cấp OTP tiêu cooldown/quota
+ */
+class OtpServiceImplTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    // lời gọi script cấp OTP, kết quả trả về do từng test đặt
+    private final List<String> redisCalls = new ArrayList<>();
+    private long issueResult = 1;
+
+    private MailServiceImpl mailService;
+    private OtpServiceImpl otpService;
+
+    @BeforeEach
+    void setUp() {
+        MailPipelineProperties pipelineProperties = new MailPipelineProperties();
+        pipelineProperties.setQueueCapacity(1);
+        // không chạy worker nào: mail OTP nằm lại trong queue
+        mailService = new MailServiceImpl(new JavaMailSenderImpl(), new TemplateEngine(),
+                command -> { }, pipelineProperties, new MetricsRegistry());
+
+        OtpProperties otpProperties = new OtpProperties();
+        otpProperties.setExpiryMinutes(5);
+        HmacOtpCodec hmacOtpCodec = new HmacOtpCodec(otpProperties);
+        hmacOtpCodec.init();
+
+        RedisService redisService = stub(RedisService.class, (proxy, method, args) -> {
+            if (!method.getName().equals("executeWithRawArgs")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            redisCalls.add(method.getName());
+            return issueResult;
+        });
+        User user = User.builder().username("user").email(EMAIL).build();
+        UserRepository userRepository = stub(UserRepository.class, (proxy, method, args) -> {
+            if (!method.getName().equals("findByEmail")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return Optional.of(user);
+        });
+        // filter chưa dựng (null) nên luôn báo "có thể tồn tại"
+        UserExistenceFilter userExistenceFilter = new UserExistenceFilter(userRepository, redisService,
+                new MetricsRegistry(), 1000, 0.01, 60_000, 100);
+
+        otpService = new OtpServiceImpl(redisService, RedisScript.of("return 1", Long.class), null,
+                hmacOtpCodec, () -> "123456", userExistenceFilter, userRepository, mailService, otpProperties, null);
+    }
+
+    @Test
+    void fullMailQueueRejectsBeforeConsumingQuota() {
+        mailService.sendSimpleEmailAsync("other@example.com", "subject", "content");
+
+        assertThatThrownBy(() -> otpService.sendOtp(new SendOtpRequest(EMAIL), OtpType.VERIFY_EMAIL))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(redisCalls).isEmpty();
+    }
+
+    @Test
+    void issuedOtpTakesTheReservedSlot() {
+        otpService.sendOtp(new SendOtpRequest(EMAIL), OtpType.VERIFY_EMAIL);
+
+        assertThat(redisCalls).hasSize(1);
+        assertThatThrownBy(mailService::reserveSlot).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void rejectedIssueGivesTheSlotBack() {
+        issueResult = 0;
+
+        assertThatThrownBy(() -> otpService.sendOtp(new SendOtpRequest(EMAIL), OtpType.VERIFY_EMAIL))
+                .isInstanceOf(NotFoundException.class);
+        assertThatCode(() -> mailService.reserveSlot().close()).doesNotThrowAnyException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}